@@ -0,0 +1,186 @@
+// AdaptiveQuestionPicker.java
+// Picks quiz flags by weight: flags the user often gets wrong come up more often, flags asked a moment ago less often
+package com.ahsan.a47_dietel_flagquizapp;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+public class AdaptiveQuestionPicker {
+
+    // weight = MIN_WEIGHT + (MAX_WEIGHT - MIN_WEIGHT) * error rate, with the error rate smoothed as (wrong + 1) / (guesses + 2)
+    // so a flag never guessed counts as missed half the time
+    static final long MIN_WEIGHT = 100;
+    static final long MAX_WEIGHT = 1000;
+    static final long COOLDOWN_MILLIS = 10 * 60 * 1000; // flags asked this recently...
+    static final int COOLDOWN_DIVISOR = 20; // ...weigh this many times less
+
+    private final WeightedSampler sampler; // current weight of every flag id - 0 for flags of disabled regions
+    private final boolean[] enabled;
+    private final int[] guesses; // per flag id
+    private final int[] wrong;
+    private final long[] lastAsked; // milliseconds since 1970, 0 if never asked
+    private final boolean[] coolingDown; // asked less than COOLDOWN_MILLIS ago
+    private final boolean[] drawn; // drawn for the current quiz - weight 0 until the next startQuiz
+    private final int[] drawnFlags; // the drawn flags, in the order they were drawn
+    private int drawnCount;
+
+    // flags that are cooling down, oldest first - flags are asked in time order, so appending keeps the ring sorted
+    private final int[] recentFlags;
+    private final long[] recentTimes;
+    private int recentHead; // index of the oldest entry
+    private int recentCount;
+
+    // starts from the per flag totals of the score history (null for a fresh start) as they are at time now
+    public AdaptiveQuestionPicker(int flagCount, ScoreStats history, long now) {
+        sampler = new WeightedSampler(flagCount);
+        enabled = new boolean[flagCount];
+        guesses = new int[flagCount];
+        wrong = new int[flagCount];
+        lastAsked = new long[flagCount];
+        coolingDown = new boolean[flagCount];
+        drawn = new boolean[flagCount];
+        drawnFlags = new int[flagCount];
+        recentFlags = new int[flagCount];
+        recentTimes = new long[flagCount];
+
+        if (history == null)
+            return;
+
+        int recent = 0;
+        Integer[] order = new Integer[flagCount];
+        for (int flagId = 0; flagId < flagCount; flagId++) {
+            guesses[flagId] = history.getFlagGuesses(flagId);
+            wrong[flagId] = guesses[flagId] - history.getFlagCorrect(flagId);
+            lastAsked[flagId] = history.getFlagLastSeen(flagId);
+            if (lastAsked[flagId] != 0 && now - lastAsked[flagId] < COOLDOWN_MILLIS)
+                order[recent++] = flagId;
+        }
+
+        // flags seen in the last few minutes (e.g. before the app was restarted) start cooling down, in the order they were seen
+        Arrays.sort(order, 0, recent, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return Long.compare(lastAsked[a], lastAsked[b]);
+            }
+        });
+        for (int i = 0; i < recent; i++)
+            startCooldown(order[i], lastAsked[order[i]]);
+    }
+
+    // enables exactly the flags ids[0..count - 1], e.g. those of the selected regions - O(n)
+    public void setEnabled(int[] ids, int count) {
+        Arrays.fill(enabled, false);
+        for (int i = 0; i < count; i++)
+            enabled[ids[i]] = true;
+
+        long[] weights = new long[enabled.length];
+        for (int flagId = 0; flagId < weights.length; flagId++)
+            weights[flagId] = weight(flagId);
+        sampler.setAll(weights);
+    }
+
+    // enables or disables one flag, e.g. when its region is switched on or off - O(log n)
+    public void setEnabled(int flagId, boolean enable) {
+        enabled[flagId] = enable;
+        sampler.set(flagId, weight(flagId));
+    }
+
+    // current weight of a flag
+    long weight(int flagId) {
+        if (!enabled[flagId] || drawn[flagId])
+            return 0;
+
+        long weight = MIN_WEIGHT + (MAX_WEIGHT - MIN_WEIGHT) * (wrong[flagId] + 1) / (guesses[flagId] + 2);
+        return coolingDown[flagId] ? Math.max(1, weight / COOLDOWN_DIVISOR) : weight;
+    }
+
+
+
+
+
+    // starts drawing the flags of a new quiz at time now: the flags drawn for the last one can come up again,
+    // and every flag whose cooldown has passed gets its full weight back
+    public void startQuiz(long now) {
+        for (int i = 0; i < drawnCount; i++) {
+            drawn[drawnFlags[i]] = false;
+            sampler.set(drawnFlags[i], weight(drawnFlags[i]));
+        }
+        drawnCount = 0;
+        endCooldowns(now);
+    }
+
+    // draws an enabled flag not drawn since startQuiz, with probability proportional to its weight,
+    // or returns -1 if every enabled flag was drawn already - O(log n)
+    public int next(Random random) {
+        int flagId = sampler.sample(random);
+        if (flagId >= 0) {
+            drawn[flagId] = true; // without replacement
+            drawnFlags[drawnCount++] = flagId;
+            sampler.set(flagId, 0);
+        }
+        return flagId;
+    }
+
+    // counts flagId as drawn for the current quiz without drawing it, e.g. when a saved quiz is restored
+    public void markDrawn(int flagId) {
+        if (drawn[flagId])
+            return;
+        drawn[flagId] = true;
+        drawnFlags[drawnCount++] = flagId;
+        sampler.set(flagId, 0);
+    }
+
+    // the flag drawn index-th (0-based) since startQuiz
+    public int drawnFlag(int index) {
+        return drawnFlags[index];
+    }
+
+    // called when flagId is shown to the user - it weighs less until COOLDOWN_MILLIS have passed
+    public void onAsked(int flagId, long now) {
+        lastAsked[flagId] = now;
+        startCooldown(flagId, now);
+        sampler.set(flagId, weight(flagId));
+    }
+
+    // called for every guess at the flag flagId - wrong guesses make it come up more often
+    public void onGuess(int flagId, boolean correct) {
+        ++guesses[flagId];
+        if (!correct)
+            ++wrong[flagId];
+        sampler.set(flagId, weight(flagId));
+    }
+
+
+
+
+
+    private void startCooldown(int flagId, long time) {
+        if (recentCount == recentFlags.length)
+            endCooldown(); // ring is full - the oldest flag cools down a little early
+
+        int tail = (recentHead + recentCount) % recentFlags.length;
+        recentFlags[tail] = flagId;
+        recentTimes[tail] = time;
+        ++recentCount;
+        coolingDown[flagId] = true;
+    }
+
+    // restores the full weight of every flag whose cooldown has passed - O(log n) per flag
+    private void endCooldowns(long now) {
+        while (recentCount > 0 && now - recentTimes[recentHead] >= COOLDOWN_MILLIS)
+            endCooldown();
+    }
+
+    private void endCooldown() {
+        int flagId = recentFlags[recentHead];
+        long time = recentTimes[recentHead];
+        recentHead = (recentHead + 1) % recentFlags.length;
+        --recentCount;
+
+        if (lastAsked[flagId] == time) { // otherwise the flag was asked again and has a newer entry further back
+            coolingDown[flagId] = false;
+            sampler.set(flagId, weight(flagId));
+        }
+    }
+}
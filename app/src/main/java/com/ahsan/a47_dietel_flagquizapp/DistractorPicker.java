@@ -0,0 +1,145 @@
+// DistractorPicker.java
+// Picks the wrong answers shown next to the correct country on the guess Buttons
+package com.ahsan.a47_dietel_flagquizapp;
+
+import java.util.Random;
+
+public class DistractorPicker {
+
+    // supplies the flags the wrong answers for a question may be drawn from.
+    // Implementations prepare their candidate arrays up front, so asking for them costs nothing per question.
+    public interface Strategy {
+        int[] candidates(int answerId); // array holding the candidate ids in its first candidateCount(answerId) elements
+        int candidateCount(int answerId);
+    }
+
+    private final Random random;
+    private Strategy strategy;
+    private int[] positions = new int[8]; // scratch buffer reused by every pick - positions drawn from the candidate array
+
+    public DistractorPicker(Random random, Strategy strategy) {
+        this.random = random;
+        this.strategy = strategy;
+    }
+
+    public void setStrategy(Strategy strategy) {
+        this.strategy = strategy;
+    }
+
+    // writes up to k distinct ids other than answerId into out, in random order, and returns how many were written.
+    // Fewer than k are written only when the strategy doesn't offer enough candidates.
+    // out must have room for k + 1 ids, the extra element is used while picking.
+    public int pick(int answerId, int k, int[] out) {
+        int[] candidates = strategy.candidates(answerId);
+        int n = strategy.candidateCount(answerId);
+        int m = Math.min(k + 1, n); // one spare draw in case the answer itself is drawn
+
+        if (positions.length < m)
+            positions = new int[m];
+
+        // Floyd's algorithm: m distinct positions out of n using exactly m random numbers.
+        // m is at most QuizEngine.MAX_CHOICES (15 wrong answers plus the spare draw), so scanning the at most 15 positions
+        // drawn so far - a few cache lines of ints - is still cheaper than hashing and boxing them into a set.
+        int drawn = 0;
+        for (int j = n - m; j < n; j++) {
+            int position = random.nextInt(j + 1);
+            if (contains(positions, drawn, position))
+                position = j;
+            positions[drawn++] = position;
+        }
+
+        // drop the correct answer if it was drawn, otherwise drop one random extra draw so the result stays uniform
+        int count = 0;
+        for (int i = 0; i < drawn; i++) {
+            int id = candidates[positions[i]];
+            if (id != answerId)
+                out[count++] = id;
+        }
+        if (count > k)
+            out[random.nextInt(count)] = out[--count];
+
+        // Floyd's algorithm doesn't produce a random order, so shuffle the few picked ids
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int id = out[j];
+            out[j] = out[i];
+            out[i] = id;
+        }
+
+        return count;
+    }
+
+    private static boolean contains(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++)
+            if (values[i] == value)
+                return true;
+        return false;
+    }
+
+
+
+
+
+    // draws wrong answers from every enabled flag
+    public static class AnyFlag implements Strategy {
+        private final int[] ids;
+        private final int count;
+
+        public AnyFlag(int[] ids, int count) {
+            this.ids = ids;
+            this.count = count;
+        }
+
+        @Override
+        public int[] candidates(int answerId) {
+            return ids;
+        }
+
+        @Override
+        public int candidateCount(int answerId) {
+            return count;
+        }
+    }
+
+    // draws wrong answers from the enabled flags of the answer's own region, which makes the quiz harder.
+    // Falls back to every enabled flag when the region doesn't have enough flags of its own.
+    public static class SameRegion implements Strategy {
+        private final FlagCatalog catalog;
+        private final int[][] regionIds; // enabled flag ids of every region
+        private final int[] regionCounts;
+        private final AnyFlag fallback;
+        private final int minimumCount; // smallest region pool that is still used instead of the fallback
+
+        public SameRegion(FlagCatalog catalog, int[] ids, int count, int minimumCount) {
+            this.catalog = catalog;
+            this.fallback = new AnyFlag(ids, count);
+            this.minimumCount = minimumCount;
+
+            regionCounts = new int[catalog.regionCount()];
+            for (int i = 0; i < count; i++)
+                ++regionCounts[catalog.regionOf(ids[i])];
+
+            regionIds = new int[catalog.regionCount()][];
+            for (int region = 0; region < regionIds.length; region++)
+                regionIds[region] = new int[regionCounts[region]];
+
+            int[] filled = new int[regionIds.length];
+            for (int i = 0; i < count; i++) {
+                int region = catalog.regionOf(ids[i]);
+                regionIds[region][filled[region]++] = ids[i];
+            }
+        }
+
+        @Override
+        public int[] candidates(int answerId) {
+            int region = catalog.regionOf(answerId);
+            return regionCounts[region] >= minimumCount ? regionIds[region] : fallback.candidates(answerId);
+        }
+
+        @Override
+        public int candidateCount(int answerId) {
+            int region = catalog.regionOf(answerId);
+            return regionCounts[region] >= minimumCount ? regionCounts[region] : fallback.candidateCount(answerId);
+        }
+    }
+}
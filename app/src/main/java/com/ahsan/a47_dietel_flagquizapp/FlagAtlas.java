@@ -0,0 +1,154 @@
+// FlagAtlas.java
+// Memory-mapped view of flags.atlas, the optional single-file pack of every flag image
+package com.ahsan.a47_dietel_flagquizapp;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import android.content.res.AssetFileDescriptor;
+import android.content.res.AssetManager;
+import android.util.Log;
+
+public class FlagAtlas {
+
+    private static final String TAG = "FlagQuiz Activity";
+
+    public static final String ATLAS_ASSET = "flags.atlas"; // written by the packFlagAtlas Gradle task (build with -PflagAtlas)
+
+    static final int MAGIC = 0x464C4741; // "FLGA"
+    static final int VERSION = 1;
+
+    private final ByteBuffer atlas; // the whole file, mapped read-only - slices of it are handed to the decoder without copying
+    private final int flagCount;
+    private final int[] scales; // size of every variant in percent of the original flag, largest first
+    private final int tableStart; // position of the (offset, length) table, one entry per flag and variant
+
+    FlagAtlas(ByteBuffer atlas) throws IOException {
+        this.atlas = atlas;
+
+        if (atlas.getInt(0) != MAGIC)
+            throw new IOException("Not a flag atlas");
+        if (atlas.getInt(4) != VERSION)
+            throw new IOException("Unsupported flag atlas version " + atlas.getInt(4));
+
+        flagCount = atlas.getInt(12);
+        scales = new int[atlas.getInt(16)];
+        for (int variant = 0; variant < scales.length; variant++)
+            scales[variant] = atlas.getInt(20 + 4 * variant);
+        tableStart = 20 + 4 * scales.length;
+    }
+
+    // maps the atlas asset, or returns null if this build doesn't contain one (or it doesn't match the catalog)
+    public static FlagAtlas open(AssetManager assets, FlagCatalog catalog) {
+        try (AssetFileDescriptor descriptor = assets.openFd(ATLAS_ASSET);
+             FileInputStream stream = descriptor.createInputStream()) {
+            // the mapping stays valid after the channel is closed
+            FileChannel channel = stream.getChannel();
+            FlagAtlas atlas = new FlagAtlas(channel.map(FileChannel.MapMode.READ_ONLY,
+                    descriptor.getStartOffset(), descriptor.getLength()));
+
+            if (atlas.flagCount != catalog.size()) {
+                Log.w(TAG, "Flag atlas holds " + atlas.flagCount + " flags, catalog " + catalog.size() + " - ignoring it");
+                return null;
+            }
+            return atlas;
+        } catch (IOException exception) {
+            return null; // built without -PflagAtlas - flags are loaded from their own PNG files
+        }
+    }
+
+
+
+
+
+    public int variantCount() {
+        return scales.length;
+    }
+
+    // size of the variant in percent of the original flag
+    public int scale(int variant) {
+        return scales[variant];
+    }
+
+    // picks the smallest variant that is still at least scale percent of the original size
+    public int variantFor(float scale) {
+        int best = 0;
+        for (int variant = 0; variant < scales.length; variant++)
+            if (scales[variant] >= scale * 100 && scales[variant] < scales[best])
+                best = variant;
+        return best;
+    }
+
+    // returns the PNG bytes of one variant of a flag as a slice of the mapped file - no data is copied
+    public ByteBuffer slice(int flagId, int variant) {
+        int entry = tableStart + 8 * (flagId * scales.length + variant);
+        int offset = atlas.getInt(entry);
+        int length = atlas.getInt(entry + 4);
+
+        ByteBuffer slice = atlas.duplicate(); // own position and limit, same memory
+        slice.limit(offset + length);
+        slice.position(offset);
+        return slice.slice();
+    }
+
+    // InputStream over a flag slice, so BitmapFactory can read it straight from the mapped memory
+    public static InputStream openStream(ByteBuffer slice) {
+        return new ByteBufferInputStream(slice.duplicate());
+    }
+
+
+
+
+
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining())
+                return -1;
+            length = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, length);
+            return length;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        @Override
+        public synchronized void mark(int readLimit) {
+            buffer.mark();
+        }
+
+        @Override
+        public synchronized void reset() {
+            buffer.reset();
+        }
+
+        @Override
+        public long skip(long count) {
+            int skipped = (int) Math.min(count, buffer.remaining());
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+    }
+}
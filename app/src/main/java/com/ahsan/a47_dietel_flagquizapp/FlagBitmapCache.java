@@ -0,0 +1,138 @@
+// FlagBitmapCache.java
+// Keeps recently decoded flags in memory and recycles the memory of evicted ones
+package com.ahsan.a47_dietel_flagquizapp;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import android.content.ComponentCallbacks2;
+import android.graphics.Bitmap;
+import android.util.LruCache;
+
+public class FlagBitmapCache {
+
+    private static final int MAX_REUSABLE = 4; // evicted bitmaps kept around for BitmapFactory.Options.inBitmap
+
+    private final LruCache<Integer, Bitmap> cache; // decoded flags by flag id, bounded by their size in bytes
+    private final List<Bitmap> reusable = new ArrayList<>(MAX_REUSABLE); // evicted bitmaps that decodes may draw into
+    private final Bitmap[] pinned = new Bitmap[2]; // flags on (or just leaving) the screen - never recycled
+
+    // counters - hits and misses count only acquire, so prefetch checks don't skew them; LruCache counts evictions itself
+    private int hits;
+    private int misses;
+    private int reuseHits;
+    private int reuseMisses;
+
+    public FlagBitmapCache(int maxBytes) {
+        cache = new LruCache<Integer, Bitmap>(maxBytes) {
+            // entries are weighed by the memory their pixels occupy, not counted
+            @Override
+            protected int sizeOf(Integer flagId, Bitmap flag) {
+                return flag.getAllocationByteCount();
+            }
+
+            // evicted bitmaps go to the reuse pool, so the next decode doesn't have to allocate new pixel memory
+            @Override
+            protected void entryRemoved(boolean evicted, Integer flagId, Bitmap oldFlag, Bitmap newFlag) {
+                if (evicted)
+                    recycle(oldFlag);
+            }
+        };
+    }
+
+
+
+
+
+    public void put(int flagId, Bitmap flag) {
+        cache.put(flagId, flag);
+    }
+
+    public boolean contains(int flagId) {
+        return cache.get(flagId) != null;
+    }
+
+    // returns the cached flag and marks it as displayed, so its memory isn't reused while it's on screen
+    public synchronized Bitmap acquire(int flagId) {
+        Bitmap flag = cache.get(flagId);
+        if (flag == null) {
+            ++misses;
+        } else if (flag != pinned[0]) {
+            ++hits;
+            pinned[1] = pinned[0]; // the previous flag stays visible until the new one replaces it
+            pinned[0] = flag;
+        } else {
+            ++hits;
+        }
+        return flag;
+    }
+
+    // returns a recycled bitmap whose memory can hold at least byteCount bytes, or null if there is none
+    public synchronized Bitmap takeReusable(int byteCount) {
+        for (int i = 0; i < reusable.size(); i++) {
+            Bitmap candidate = reusable.get(i);
+            if (candidate.getAllocationByteCount() >= byteCount) {
+                ++reuseHits;
+                return reusable.remove(i);
+            }
+        }
+        ++reuseMisses;
+        return null;
+    }
+
+    private synchronized void recycle(Bitmap flag) {
+        if (flag.isMutable() && flag != pinned[0] && flag != pinned[1] && reusable.size() < MAX_REUSABLE)
+            reusable.add(flag);
+    }
+
+
+
+
+
+    // called from ComponentCallbacks2.onTrimMemory - gives memory back when the system runs low
+    public void trimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE) {
+            // app is in the background and likely to be killed - drop everything
+            cache.evictAll();
+            synchronized (this) {
+                reusable.clear(); // evictAll moved the cached flags into the pool
+            }
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            cache.trimToSize(cache.maxSize() / 2);
+            synchronized (this) {
+                reusable.clear();
+            }
+        }
+    }
+
+    public synchronized int hitCount() {
+        return hits;
+    }
+
+    public synchronized int missCount() {
+        return misses;
+    }
+
+    public int evictionCount() {
+        return cache.evictionCount();
+    }
+
+    public synchronized int reuseHitCount() {
+        return reuseHits;
+    }
+
+    public synchronized int reuseMissCount() {
+        return reuseMisses;
+    }
+
+    public int sizeInBytes() {
+        return cache.size();
+    }
+
+    @Override
+    public String toString() {
+        return "FlagBitmapCache[bytes=" + sizeInBytes() + "/" + cache.maxSize() + ", hits=" + hitCount()
+                + ", misses=" + missCount() + ", evictions=" + evictionCount()
+                + ", reuseHits=" + reuseHitCount() + ", reuseMisses=" + reuseMissCount() + "]";
+    }
+}
@@ -0,0 +1,279 @@
+// FlagCatalog.java
+// Immutable index of every flag shipped in the app's assets folder
+package com.ahsan.a47_dietel_flagquizapp;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+
+public final class FlagCatalog {
+
+    public static final String CATALOG_ASSET = "flags.idx"; // name of the index generated by the generateFlagCatalog Gradle task
+
+    static final int MAGIC = 0x464C4743; // "FLGC" - first 4 bytes of the catalog file
+    static final int VERSION = 2; // bumped whenever the record layout written by app/build.gradle changes
+
+    private final String[] regionNames; // region (assets sub folder) names, sorted alphabetically
+    private final int[] regionStart; // id of the first flag of each region - flags are grouped by region so every region is one id range
+    private final byte[] regionOf; // region index of every flag id
+    private final String[] fileNames; // file names without the .png extension, e.g. Europe-Czech_Republic
+    private final String[] displayNames; // country names as shown on the guess Buttons, e.g. Czech Republic
+    private final String[] assetPaths; // full asset path of every flag, e.g. Europe/Europe-Czech_Republic.png
+    private final int[] assetOffsets; // byte offset of the flag image inside its asset file
+    private final int[] assetLengths; // byte length of the flag image inside its asset file
+
+    private FlagCatalog(String[] regionNames, int[] regionStart, byte[] regionOf, String[] fileNames,
+                        String[] displayNames, int[] assetOffsets, int[] assetLengths) {
+        this.regionNames = regionNames;
+        this.regionStart = regionStart;
+        this.regionOf = regionOf;
+        this.fileNames = fileNames;
+        this.displayNames = displayNames;
+        this.assetOffsets = assetOffsets;
+        this.assetLengths = assetLengths;
+
+        // build every asset path once so loading a flag never concatenates Strings
+        assetPaths = new String[fileNames.length];
+        for (int id = 0; id < fileNames.length; id++)
+            assetPaths[id] = regionNames[regionOf[id]] + "/" + fileNames[id] + ".png";
+    }
+
+
+
+
+
+    // reads the binary catalog written by the generateFlagCatalog task in app/build.gradle
+    public static FlagCatalog read(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+
+        if (in.readInt() != MAGIC)
+            throw new IOException("Not a flag catalog");
+        int version = in.readInt();
+        if (version != VERSION)
+            throw new IOException("Unsupported flag catalog version " + version);
+
+        int regionCount = in.readUnsignedByte();
+        String[] regionNames = new String[regionCount];
+        for (int region = 0; region < regionCount; region++)
+            regionNames[region] = in.readUTF();
+
+        int flagCount = in.readInt();
+        byte[] regionOf = new byte[flagCount];
+        String[] fileNames = new String[flagCount];
+        String[] displayNames = new String[flagCount];
+        int[] assetOffsets = new int[flagCount];
+        int[] assetLengths = new int[flagCount];
+
+        for (int id = 0; id < flagCount; id++) {
+            regionOf[id] = in.readByte();
+            fileNames[id] = in.readUTF();
+            displayNames[id] = in.readUTF();
+            assetOffsets[id] = in.readInt();
+            assetLengths[id] = in.readInt();
+        }
+
+        return new FlagCatalog(regionNames, regionStarts(regionOf, regionCount), regionOf, fileNames,
+                displayNames, assetOffsets, assetLengths);
+    }
+
+    // writes the catalog in the format read expects - the same bytes the generateFlagCatalog task produces
+    public void write(OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeByte(regionNames.length);
+        for (String regionName : regionNames)
+            out.writeUTF(regionName);
+
+        out.writeInt(fileNames.length);
+        for (int id = 0; id < fileNames.length; id++) {
+            out.writeByte(regionOf[id]);
+            out.writeUTF(fileNames[id]);
+            out.writeUTF(displayNames[id]);
+            out.writeInt(assetOffsets[id]);
+            out.writeInt(assetLengths[id]);
+        }
+        out.flush();
+    }
+
+
+
+
+
+    // builds the catalog from directory listings - used only when the generated index is missing (e.g. a build without the Gradle task)
+    // files[region] holds the flag file names (with .png extension) found in the assets folder regions[region]
+    public static FlagCatalog fromAssetListing(String[] regions, String[][] files) {
+        // sort regions (and the flags inside each region) so ids match the ones the Gradle task generates
+        Integer[] order = new Integer[regions.length];
+        for (int region = 0; region < regions.length; region++)
+            order[region] = region;
+        final String[] names = regions;
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return names[a].compareTo(names[b]);
+            }
+        });
+
+        int flagCount = 0;
+        for (String[] regionFiles : files)
+            flagCount += regionFiles.length;
+
+        String[] regionNames = new String[regions.length];
+        byte[] regionOf = new byte[flagCount];
+        String[] fileNames = new String[flagCount];
+        String[] displayNames = new String[flagCount];
+        int id = 0;
+
+        for (int region = 0; region < order.length; region++) {
+            regionNames[region] = regions[order[region]];
+            String[] regionFiles = files[order[region]].clone();
+            Arrays.sort(regionFiles);
+
+            for (String file : regionFiles) {
+                regionOf[id] = (byte) region;
+                fileNames[id] = file.replace(".png", "");
+                displayNames[id] = displayName(fileNames[id]);
+                ++id;
+            }
+        }
+
+        // loose PNG files always start at offset 0, their length isn't known without opening them
+        return new FlagCatalog(regionNames, regionStarts(regionOf, regions.length), regionOf, fileNames,
+                displayNames, new int[flagCount], new int[flagCount]);
+    }
+
+
+
+
+
+    // returns a catalog identical to this one except for the names shown to the user, e.g. translated ones -
+    // names[id] replaces displayName(id), so it must hold one name per flag
+    public FlagCatalog withDisplayNames(String[] names) {
+        if (names.length != fileNames.length)
+            throw new IllegalArgumentException(names.length + " display names for " + fileNames.length + " flags");
+        return new FlagCatalog(regionNames, regionStart, regionOf, fileNames, names.clone(), assetOffsets, assetLengths);
+    }
+
+    // parses a flag file name (regionName-countryName) into the country name shown to the user
+    static String displayName(String fileName) {
+        return fileName.substring(fileName.indexOf('-') + 1).replace('_', ' ');
+    }
+
+    // computes the first flag id of every region, with one extra entry holding the total flag count
+    private static int[] regionStarts(byte[] regionOf, int regionCount) {
+        int[] start = new int[regionCount + 1];
+        for (byte region : regionOf)
+            ++start[region + 1];
+        for (int region = 0; region < regionCount; region++)
+            start[region + 1] += start[region];
+        return start;
+    }
+
+
+
+
+
+    // number of flags in the catalog, flag ids run from 0 to size() - 1
+    public int size() {
+        return fileNames.length;
+    }
+
+    public int regionCount() {
+        return regionNames.length;
+    }
+
+    public String regionName(int region) {
+        return regionNames[region];
+    }
+
+    public int regionOf(int id) {
+        return regionOf[id];
+    }
+
+    // id of the first flag of region - a region's flags are the ids from regionStart(region) to regionEnd(region) - 1
+    public int regionStart(int region) {
+        return regionStart[region];
+    }
+
+    public int regionEnd(int region) {
+        return regionStart[region + 1];
+    }
+
+    public String fileName(int id) {
+        return fileNames[id];
+    }
+
+    public String displayName(int id) {
+        return displayNames[id];
+    }
+
+    public String assetPath(int id) {
+        return assetPaths[id];
+    }
+
+    public int assetOffset(int id) {
+        return assetOffsets[id];
+    }
+
+    public int assetLength(int id) {
+        return assetLengths[id];
+    }
+
+    // hash of every file name in flag id order - equal fingerprints mean the same flag ids, e.g. for the score history
+    // whose per flag records store ids
+    public int fingerprint() {
+        return Arrays.hashCode(fileNames);
+    }
+
+    // returns the id of the flag with the given file name (without .png), or -1 if there is none
+    public int indexOf(String fileName) {
+        for (int id = 0; id < fileNames.length; id++)
+            if (fileNames[id].equals(fileName))
+                return id;
+        return -1;
+    }
+
+
+
+
+
+    // converts a set of enabled region names (the REGIONS preference) into a bit mask with one bit per region
+    public int regionMask(Collection<String> regions) {
+        int mask = 0;
+        for (int region = 0; region < regionNames.length; region++)
+            if (regions.contains(regionNames[region]))
+                mask |= 1 << region;
+        return mask;
+    }
+
+    // number of flags belonging to the regions in regionMask
+    public int countFlags(int regionMask) {
+        int count = 0;
+        for (int region = 0; region < regionNames.length; region++)
+            if ((regionMask & (1 << region)) != 0)
+                count += regionStart[region + 1] - regionStart[region];
+        return count;
+    }
+
+    // writes the ids of all flags belonging to the regions in regionMask into ids and returns how many were written
+    public int selectFlags(int regionMask, int[] ids) {
+        int count = 0;
+        for (int region = 0; region < regionNames.length; region++) {
+            if ((regionMask & (1 << region)) == 0)
+                continue;
+
+            for (int id = regionStart[region]; id < regionStart[region + 1]; id++)
+                ids[count++] = id;
+        }
+        return count;
+    }
+}
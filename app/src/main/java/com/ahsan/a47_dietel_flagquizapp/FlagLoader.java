@@ -0,0 +1,363 @@
+// FlagLoader.java
+// Decodes flag images on a background thread, ahead of the question that shows them
+package com.ahsan.a47_dietel_flagquizapp;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import android.content.res.AssetManager;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.SparseArray;
+
+public class FlagLoader {
+
+    private static final String TAG = "FlagQuiz Activity";
+
+    // Bitmap.Config.HARDWARE (API 26): pixels only in graphics memory, none on the heap - looked up by name, since the app
+    // compiles against API 25. null on older devices.
+    static final Bitmap.Config HARDWARE = hardwareConfig();
+
+    // receives a decoded flag on the main thread
+    public interface Callback {
+        void onFlagLoaded(int flagId, Bitmap flag);
+    }
+
+    private final AssetManager assets;
+    private final FlagCatalog catalog;
+    private final FlagAtlas atlas; // null unless the build packed the flags into one file
+    private final FlagVariants variants; // null unless the build re-encoded the flags (optimizeFlags)
+    private final ExecutorService executor; // shared decode threads (see FlagRepository)
+    private final FlagBitmapCache cache; // shared decoded flags - the only owner of the Bitmaps
+    private final Handler mainHandler = new Handler(Looper.getMainLooper()); // delivers decoded flags to the UI thread
+    private final SparseArray<DecodeTask> tasks = new SparseArray<>(); // decodes still running, by flag id - only touched on the main thread
+
+    // size of the view the flags are displayed in - flags are decoded just large enough to fill it. Main thread only:
+    // every DecodeTask takes a copy when it's submitted, so the decode threads never read these fields.
+    private int targetWidth;
+    private int targetHeight;
+
+    public FlagLoader(FlagRepository repository) {
+        assets = repository.getAssets();
+        catalog = repository.getCatalog();
+        atlas = repository.getAtlas();
+        variants = repository.getVariants();
+        executor = repository.getDecodeExecutor();
+        cache = repository.getBitmapCache();
+    }
+
+    // sets the size of the ImageView the flags are shown in, used for decodes submitted from now on
+    public void setTargetSize(int width, int height) {
+        targetWidth = width;
+        targetHeight = height;
+    }
+
+
+
+
+
+    // starts decoding a flag the user will see soon, unless it's cached or already being decoded
+    public void prefetch(int flagId) {
+        if (tasks.get(flagId) == null && !cache.contains(flagId))
+            submit(flagId, true);
+    }
+
+    // delivers the flag to callback on the main thread - immediately if it's cached (e.g. it was prefetched)
+    public void load(int flagId, Callback callback) {
+        DecodeTask task = tasks.get(flagId);
+
+        if (task == null) {
+            Bitmap flag = cache.acquire(flagId);
+            if (flag != null) {
+                callback.onFlagLoaded(flagId, flag);
+                return;
+            }
+            task = submit(flagId, true);
+        }
+
+        task.callback = callback; // called by deliver once the decode finishes
+    }
+
+    // cached is false for a flag that goes straight to its callback without entering the cache (see deliver)
+    private DecodeTask submit(int flagId, boolean cached) {
+        DecodeTask task = new DecodeTask(flagId, cached, targetWidth, targetHeight);
+        tasks.put(flagId, task);
+        task.future = executor.submit(task);
+        return task;
+    }
+
+    // forgets every pending decode and callback, e.g. when the quiz restarts or the view is destroyed
+    public void cancelAll() {
+        for (int i = 0; i < tasks.size(); i++) {
+            DecodeTask task = tasks.valueAt(i);
+            task.callback = null;
+            task.future.cancel(false);
+        }
+        tasks.clear();
+    }
+
+    // true while decodes started by load or prefetch haven't been delivered - lets tests wait for them
+    boolean hasPendingDecodes() {
+        return tasks.size() > 0;
+    }
+
+
+
+
+
+    // decodes the flag, sub-sampled so it's no larger than needed for the target size, as a hardware bitmap where
+    // there are some - otherwise in RGB_565 if it's opaque, into the memory of an evicted flag when one is big enough
+    private Bitmap decode(DecodeTask task) {
+        if (atlas != null)
+            return decodeFromAtlas(task);
+        if (variants != null)
+            return decodeVariant(task);
+
+        int flagId = task.flagId;
+        String path = catalog.assetPath(flagId);
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        PngHeader header = new PngHeader();
+
+        try {
+            // read only the image dimensions (and transparency) first
+            boolean png;
+            try (InputStream stream = assets.open(path)) {
+                png = header.read(stream);
+            }
+            if (!png) { // some other format after all - let BitmapFactory find the size
+                options.inJustDecodeBounds = true;
+                try (InputStream stream = assets.open(path)) {
+                    BitmapFactory.decodeStream(stream, null, options);
+                }
+                header.width = options.outWidth;
+                header.height = options.outHeight;
+                header.opaque = false;
+            }
+
+            prepareDecode(options, header, task);
+            Bitmap flag;
+            try (InputStream stream = assets.open(path)) {
+                flag = BitmapFactory.decodeStream(stream, null, options);
+            } catch (IllegalArgumentException exception) {
+                // the recycled bitmap couldn't be used after all - decode into new memory
+                options.inBitmap = null;
+                try (InputStream stream = assets.open(path)) {
+                    flag = BitmapFactory.decodeStream(stream, null, options);
+                }
+            }
+            if (QuizMetrics.ENABLED)
+                recordDecodedBytes(flag, header.width, header.height);
+            return flag;
+        } catch (IOException exception) {
+            Log.e(TAG, "Error loading " + path, exception);
+            return null;
+        }
+    }
+
+    // same as decode, but reads the PNG bytes straight from the memory-mapped atlas - no file is opened.
+    // If the atlas holds downscaled variants, the smallest one that still fills the target is used.
+    private Bitmap decodeFromAtlas(DecodeTask task) {
+        int flagId = task.flagId;
+        PngHeader header = new PngHeader();
+        try {
+            if (!header.read(FlagAtlas.openStream(atlas.slice(flagId, 0))))
+                return null; // packFlagAtlas only packs PNGs
+        } catch (IOException exception) {
+            return null; // never thrown by the atlas' in-memory stream
+        }
+        int fullWidth = header.width;
+        int fullHeight = header.height;
+
+        int variant = atlas.variantFor(displayScale(fullWidth, fullHeight, task));
+        ByteBuffer png = atlas.slice(flagId, variant);
+        try {
+            if (variant != 0 && !header.read(FlagAtlas.openStream(png))) // header of the smaller variant
+                return null;
+        } catch (IOException exception) {
+            return null;
+        }
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        prepareDecode(options, header, task);
+        Bitmap flag;
+        try {
+            flag = BitmapFactory.decodeStream(FlagAtlas.openStream(png), null, options);
+        } catch (IllegalArgumentException exception) {
+            options.inBitmap = null;
+            flag = BitmapFactory.decodeStream(FlagAtlas.openStream(png), null, options);
+        }
+        if (QuizMetrics.ENABLED)
+            recordDecodedBytes(flag, fullWidth, fullHeight);
+        return flag;
+    }
+
+    // same as decode, but from the cheapest variant the build wrote that still fills the target - a palette PNG or
+    // lossless WebP, downscaled ahead of time. Its size and transparency come from the manifest, so nothing is read twice.
+    private Bitmap decodeVariant(DecodeTask task) {
+        int flagId = task.flagId;
+        int fullWidth = variants.width(flagId, 0) * 100 / variants.scale(0);
+        int fullHeight = variants.height(flagId, 0) * 100 / variants.scale(0);
+        int variant = variants.variantFor(displayScale(fullWidth, fullHeight, task));
+
+        PngHeader header = new PngHeader();
+        header.width = variants.width(flagId, variant);
+        header.height = variants.height(flagId, variant);
+        header.opaque = variants.isOpaque(flagId, variant);
+
+        String path = variants.assetPath(flagId, variant);
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        prepareDecode(options, header, task);
+        try {
+            Bitmap flag;
+            try (InputStream stream = assets.open(path)) {
+                flag = BitmapFactory.decodeStream(stream, null, options);
+            } catch (IllegalArgumentException exception) {
+                options.inBitmap = null;
+                try (InputStream stream = assets.open(path)) {
+                    flag = BitmapFactory.decodeStream(stream, null, options);
+                }
+            }
+            if (QuizMetrics.ENABLED)
+                recordDecodedBytes(flag, fullWidth, fullHeight);
+            return flag;
+        } catch (IOException exception) {
+            Log.e(TAG, "Error loading " + path, exception);
+            return null;
+        }
+    }
+
+    // sets up the decode of an image described by header: sample size for the target, and the smallest pixel format
+    // that keeps it intact - a hardware bitmap (immutable, so never reused) or else RGB_565 for opaque flags, which halves
+    // the memory of ARGB_8888, decoded into reusable memory if there is some
+    private void prepareDecode(BitmapFactory.Options options, PngHeader header, DecodeTask task) {
+        options.inSampleSize = sampleSize(header.width, header.height, task.targetWidth, task.targetHeight);
+        options.inJustDecodeBounds = false;
+
+        if (HARDWARE != null) {
+            options.inPreferredConfig = HARDWARE;
+            options.inMutable = false;
+            options.inBitmap = null;
+        } else {
+            options.inPreferredConfig = header.opaque ? Bitmap.Config.RGB_565 : Bitmap.Config.ARGB_8888;
+            options.inMutable = true; // only mutable bitmaps can be reused later
+            options.inBitmap = cache.takeReusable(decodedByteCount(header.width, header.height, options));
+        }
+    }
+
+    // counts the heap memory the decoded flag uses, and how much less that is than a full size ARGB_8888 decode
+    private static void recordDecodedBytes(Bitmap flag, int fullWidth, int fullHeight) {
+        if (flag == null)
+            return;
+        long heapBytes = flag.getConfig() == HARDWARE ? 0 : flag.getByteCount();
+        QuizMetrics.DECODED_HEAP_BYTES.addAndGet(heapBytes);
+        QuizMetrics.DECODED_BYTES_SAVED.addAndGet((long) fullWidth * fullHeight * 4 - heapBytes);
+    }
+
+    private static Bitmap.Config hardwareConfig() {
+        if (Build.VERSION.SDK_INT < 26) // Build.VERSION_CODES.O
+            return null;
+        try {
+            return Bitmap.Config.valueOf("HARDWARE");
+        } catch (IllegalArgumentException exception) {
+            return null;
+        }
+    }
+
+    // factor fitCenter scales an image of the given size by to fit the target (1 if the target size is unknown)
+    private static float displayScale(int width, int height, DecodeTask task) {
+        if (task.targetWidth <= 0 || task.targetHeight <= 0 || width <= 0 || height <= 0)
+            return 1;
+        return Math.min((float) task.targetWidth / width, (float) task.targetHeight / height);
+    }
+
+    // largest power of 2 that still lets the decoded image fill the target when scaled with fitCenter,
+    // i.e. at least one dimension stays as large as the target's
+    static int sampleSize(int width, int height, int targetWidth, int targetHeight) {
+        int sampleSize = 1;
+        if (targetWidth <= 0 || targetHeight <= 0)
+            return sampleSize;
+
+        while (width / (sampleSize * 2) >= targetWidth || height / (sampleSize * 2) >= targetHeight)
+            sampleSize *= 2;
+        return sampleSize;
+    }
+
+    // bytes of pixel memory decoding a width x height image with the sample size and config in options needs
+    static int decodedByteCount(int width, int height, BitmapFactory.Options options) {
+        int bytesPerPixel = options.inPreferredConfig == Bitmap.Config.RGB_565 ? 2 : 4;
+        width = (width + options.inSampleSize - 1) / options.inSampleSize;
+        height = (height + options.inSampleSize - 1) / options.inSampleSize;
+        return width * height * bytesPerPixel;
+    }
+
+    // called on the main thread when a decode finishes
+    private void deliver(DecodeTask task) {
+        if (tasks.get(task.flagId) != task)
+            return; // cancelled in the meantime
+
+        tasks.remove(task.flagId);
+        if (task.callback == null)
+            return;
+        if (task.flag == null || !task.cached) { // failed, or decoded for this callback only
+            task.callback.onFlagLoaded(task.flagId, task.flag);
+            return;
+        }
+
+        // hand out the flag through the cache so it gets pinned
+        Bitmap flag = cache.acquire(task.flagId);
+        if (flag != null) {
+            task.callback.onFlagLoaded(task.flagId, flag);
+        } else {
+            // evicted before it could be shown (tiny cache after onTrimMemory) - its memory may be in the reuse pool
+            // already, where the next decode would draw over it. Decode it again, outside the cache, so it's never recycled.
+            DecodeTask retry = submit(task.flagId, false);
+            retry.callback = task.callback;
+        }
+    }
+
+
+
+
+
+    // one background decode - runs on the executor, then hands itself back to the main thread
+    private class DecodeTask implements Runnable {
+        final int flagId;
+        final boolean cached; // the decoded flag goes into the cache - see submit
+        final int targetWidth; // the target size when the task was submitted - final, so safely seen by the decode thread
+        final int targetHeight;
+        Future<?> future;
+        volatile Bitmap flag; // written by the decode thread, null if decoding failed
+        Callback callback; // main thread only
+
+        DecodeTask(int flagId, boolean cached, int targetWidth, int targetHeight) {
+            this.flagId = flagId;
+            this.cached = cached;
+            this.targetWidth = targetWidth;
+            this.targetHeight = targetHeight;
+        }
+
+        @Override
+        public void run() {
+            long start = QuizMetrics.ENABLED ? QuizMetrics.now() : 0;
+            flag = decode(this);
+            if (QuizMetrics.ENABLED)
+                QuizMetrics.DECODE.record(QuizMetrics.now() - start);
+            if (flag != null && cached)
+                cache.put(flagId, flag);
+
+            mainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    deliver(DecodeTask.this);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,138 @@
+// FlagRepository.java
+// Process-wide holder of the flag catalog, shared by every screen of the app
+package com.ahsan.a47_dietel_flagquizapp;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import android.content.Context;
+import android.content.res.AssetManager;
+import android.content.res.Resources;
+import android.util.Log;
+
+public final class FlagRepository {
+
+    private static final String TAG = "FlagQuiz Activity";
+
+    private static final int DECODE_THREADS = 2; // enough to decode the next flags while the user answers
+
+    private static FlagRepository instance; // created the first time any screen asks for the flags
+
+    private final AssetManager assets; // the application's assets - outlives every Activity
+    private final FlagCatalog catalog; // immutable, so it can be shared without copying or locking
+    private final FlagAtlas atlas; // all flags in one memory-mapped file, or null if the build didn't pack one
+    private final FlagVariants variants; // re-encoded, downscaled flags the build picked per flag, or null if it shipped the original PNGs
+    private final ExecutorService decodeExecutor = Executors.newFixedThreadPool(DECODE_THREADS); // background threads used by every FlagLoader
+    private final ExecutorService ioExecutor = Executors.newSingleThreadExecutor(); // file writes, in the order they were requested
+    private final ScoreHistoryStore scoreHistory; // every guess and quiz played, or null if the history file can't be opened
+    private final FlagBitmapCache bitmapCache = new FlagBitmapCache((int) (Runtime.getRuntime().maxMemory() / 8)); // decoded flags, up to 1/8 of the heap
+
+    private FlagRepository(Context context) {
+        assets = context.getAssets();
+        long start = QuizMetrics.ENABLED ? QuizMetrics.now() : 0;
+        catalog = localize(loadCatalog(context), context.getResources());
+        if (QuizMetrics.ENABLED)
+            QuizMetrics.CATALOG_LOAD.record(QuizMetrics.now() - start);
+        atlas = FlagAtlas.open(assets, catalog);
+        variants = atlas == null ? FlagVariants.open(assets, catalog) : null;
+        scoreHistory = openScoreHistory(context.getFilesDir(), catalog, ioExecutor);
+    }
+
+    // returns the shared repository, loading the flag catalog the first time it's called
+    public static synchronized FlagRepository get(Context context) {
+        if (instance == null)
+            instance = new FlagRepository(context.getApplicationContext());
+        return instance;
+    }
+
+    // drops the shared repository: stops its threads and closes the score history - for tests only, see StartupLoader.reset
+    static synchronized void reset() {
+        if (instance == null)
+            return;
+        instance.decodeExecutor.shutdownNow();
+        if (instance.scoreHistory != null)
+            instance.scoreHistory.close();
+        instance.ioExecutor.shutdown(); // after close, so the last records are still written
+        instance = null;
+    }
+
+    public AssetManager getAssets() {
+        return assets;
+    }
+
+    public FlagCatalog getCatalog() {
+        return catalog;
+    }
+
+    public FlagAtlas getAtlas() {
+        return atlas;
+    }
+
+    public FlagVariants getVariants() {
+        return variants;
+    }
+
+    public ExecutorService getDecodeExecutor() {
+        return decodeExecutor;
+    }
+
+    public FlagBitmapCache getBitmapCache() {
+        return bitmapCache;
+    }
+
+    public ScoreHistoryStore getScoreHistory() {
+        return scoreHistory;
+    }
+
+
+
+
+
+    // reads the index generated at build time, falling back to listing the region folders if it's missing
+    private static FlagCatalog loadCatalog(Context context) {
+        AssetManager assets = context.getAssets();
+
+        try (InputStream stream = assets.open(FlagCatalog.CATALOG_ASSET)) {
+            return FlagCatalog.read(stream);
+        } catch (IOException exception) {
+            Log.w(TAG, "Flag catalog index not found, listing assets instead", exception);
+        }
+
+        String[] regions = context.getResources().getStringArray(R.array.regions_list); // region folders are the ones offered in the settings
+        String[][] files = new String[regions.length][];
+
+        for (int region = 0; region < regions.length; region++) {
+            try {
+                files[region] = assets.list(regions[region]);
+            } catch (IOException exception) {
+                Log.e(TAG, "Error loading image file names", exception);
+                files[region] = new String[0];
+            }
+        }
+
+        return FlagCatalog.fromAssetListing(regions, files);
+    }
+
+    private static ScoreHistoryStore openScoreHistory(File directory, FlagCatalog catalog, ExecutorService executor) {
+        try {
+            return ScoreHistoryStore.open(directory, catalog.fingerprint(), executor);
+        } catch (IOException exception) {
+            Log.e(TAG, "Error opening the score history", exception);
+            return null; // quizzes still work, they just aren't remembered
+        }
+    }
+
+    // replaces the names derived from the file names by the flag_names resource, so they follow the device language -
+    // loaded once here, the guess Buttons only ever look names up by flag id
+    private static FlagCatalog localize(FlagCatalog catalog, Resources resources) {
+        String[] names = resources.getStringArray(R.array.flag_names); // written by the generateFlagNames Gradle task, in flag id order
+        if (names.length != catalog.size()) {
+            Log.w(TAG, "flag_names has " + names.length + " entries, catalog " + catalog.size() + " - keeping the file names");
+            return catalog;
+        }
+        return catalog.withDisplayNames(names);
+    }
+}
@@ -0,0 +1,117 @@
+// FlagVariants.java
+// Index of the re-encoded flag images (palette PNG or lossless WebP, in several sizes) the optimizeFlags Gradle task ships
+package com.ahsan.a47_dietel_flagquizapp;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import android.content.res.AssetManager;
+import android.util.Log;
+
+public class FlagVariants {
+
+    private static final String TAG = "FlagQuiz Activity";
+
+    public static final String MANIFEST_ASSET = "flags.variants"; // written by the optimizeFlags Gradle task (build with -PflagVariants)
+
+    static final int MAGIC = 0x464C4756; // "FLGV"
+    static final int VERSION = 1;
+
+    // encodings of a variant - the build picked the smallest one that stayed within its error threshold
+    static final int FORMAT_PNG = 0;
+    static final int FORMAT_WEBP = 1;
+    private static final String[] EXTENSIONS = {".png", ".webp"}; // by format
+
+    private final int[] scales; // size of every variant in percent of the original flag, largest first
+    // per flag and variant, at flagId * scales.length + variant
+    private final String[] assetPaths; // e.g. flags/50/Europe-Czech_Republic.webp - built once, so loading a flag never concatenates Strings
+    private final int[] widths;
+    private final int[] heights;
+    private final boolean[] opaque; // no transparent pixel - may be decoded in RGB_565
+
+    FlagVariants(InputStream stream, FlagCatalog catalog) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+
+        if (in.readInt() != MAGIC)
+            throw new IOException("Not a flag variants manifest");
+        int version = in.readInt();
+        if (version != VERSION)
+            throw new IOException("Unsupported flag variants version " + version);
+        int flagCount = in.readInt();
+        if (flagCount != catalog.size()) {
+            Log.w(TAG, "Flag variants hold " + flagCount + " flags, catalog " + catalog.size() + " - ignoring them");
+            throw new IOException("Flag variants don't match the catalog");
+        }
+
+        scales = new int[in.readInt()];
+        for (int variant = 0; variant < scales.length; variant++)
+            scales[variant] = in.readInt();
+
+        int entries = flagCount * scales.length;
+        assetPaths = new String[entries];
+        widths = new int[entries];
+        heights = new int[entries];
+        opaque = new boolean[entries];
+        for (int flagId = 0; flagId < flagCount; flagId++) {
+            for (int variant = 0; variant < scales.length; variant++) {
+                int entry = flagId * scales.length + variant;
+                int format = in.readUnsignedByte();
+                if (format >= EXTENSIONS.length)
+                    throw new IOException("Unknown flag variant format " + format);
+                opaque[entry] = in.readBoolean();
+                widths[entry] = in.readInt();
+                heights[entry] = in.readInt();
+                assetPaths[entry] = "flags/" + scales[variant] + "/" + catalog.fileName(flagId) + EXTENSIONS[format];
+            }
+        }
+    }
+
+    // reads the manifest, or returns null if this build doesn't contain one (or it doesn't match the catalog)
+    public static FlagVariants open(AssetManager assets, FlagCatalog catalog) {
+        try (InputStream stream = assets.open(MANIFEST_ASSET)) {
+            return new FlagVariants(stream, catalog);
+        } catch (IOException exception) {
+            return null; // built without -PflagVariants - flags are loaded from their original PNG files
+        }
+    }
+
+
+
+
+
+    public int variantCount() {
+        return scales.length;
+    }
+
+    // size of the variant in percent of the original flag
+    public int scale(int variant) {
+        return scales[variant];
+    }
+
+    // picks the smallest variant that is still at least scale percent of the original size - same rule as FlagAtlas
+    public int variantFor(float scale) {
+        int best = 0;
+        for (int variant = 0; variant < scales.length; variant++)
+            if (scales[variant] >= scale * 100 && scales[variant] < scales[best])
+                best = variant;
+        return best;
+    }
+
+    public String assetPath(int flagId, int variant) {
+        return assetPaths[flagId * scales.length + variant];
+    }
+
+    public int width(int flagId, int variant) {
+        return widths[flagId * scales.length + variant];
+    }
+
+    public int height(int flagId, int variant) {
+        return heights[flagId * scales.length + variant];
+    }
+
+    public boolean isOpaque(int flagId, int variant) {
+        return opaque[flagId * scales.length + variant];
+    }
+}
@@ -0,0 +1,49 @@
+// FrameDropMonitor.java
+// Counts the frames an animation misses, using the Choreographer's vsync timestamps
+package com.ahsan.a47_dietel_flagquizapp;
+
+import android.view.Choreographer;
+
+public class FrameDropMonitor implements Choreographer.FrameCallback {
+
+    private final Choreographer choreographer = Choreographer.getInstance(); // of the main thread - create the monitor there
+    private final long framePeriodNanos; // time between two vsyncs of the display
+    private boolean running;
+    private long lastFrameNanos; // vsync time of the previous frame, 0 before the first one
+
+    public FrameDropMonitor(float refreshRate) {
+        framePeriodNanos = (long) (1000000000L / (refreshRate > 0 ? refreshRate : 60));
+    }
+
+    // starts watching frames, e.g. when an animation starts - does nothing if it's already watching
+    public void start() {
+        if (running)
+            return;
+        running = true;
+        lastFrameNanos = 0;
+        choreographer.postFrameCallback(this);
+    }
+
+    public void stop() {
+        running = false;
+        choreographer.removeFrameCallback(this);
+    }
+
+    // called once per frame while running - a frame that comes more than half a period late missed a vsync
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!running)
+            return;
+
+        if (lastFrameNanos != 0) {
+            long interval = frameTimeNanos - lastFrameNanos;
+            QuizMetrics.ANIMATION_FRAME.record(interval);
+            QuizMetrics.ANIMATION_FRAMES.incrementAndGet();
+            long missed = (interval + framePeriodNanos / 2) / framePeriodNanos - 1;
+            if (missed > 0)
+                QuizMetrics.DROPPED_FRAMES.addAndGet(missed);
+        }
+        lastFrameNanos = frameTimeNanos;
+        choreographer.postFrameCallback(this); // the same callback every frame, nothing is allocated
+    }
+}
@@ -0,0 +1,131 @@
+// GuessGridLayout.java
+// Grid of any number of guess Buttons, created once and reused for every question
+package com.ahsan.a47_dietel_flagquizapp;
+
+import android.content.Context;
+import android.text.TextUtils;
+import android.util.AttributeSet;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.Button;
+
+// Replaces the four fixed two-Button rows: one flat ViewGroup whose children are the guess Buttons, COLUMNS per row,
+// every row as tall as the tallest Button. Buttons are only inflated when more are needed than ever before - fewer
+// choices just hide the rest until they're needed again.
+// A new question only changes texts and enabled states. The Buttons have a fixed width and a fixed number of lines
+// (see guess_button.xml), so TextView redraws a new label in place instead of requesting a layout pass - and
+// setLabel skips Buttons whose label didn't change at all.
+public class GuessGridLayout extends ViewGroup {
+
+    public static final int COLUMNS = 2; // Buttons per row
+
+    private int buttonCount; // Buttons in use - the children after them are GONE, kept for later
+    private OnClickListener guessClickListener; // set on every Button, also those created later
+
+    public GuessGridLayout(Context context) {
+        super(context);
+    }
+
+    public GuessGridLayout(Context context, AttributeSet attrs) {
+        super(context, attrs);
+    }
+
+    public GuessGridLayout(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+    }
+
+    // listener of every guess Button - each Button's tag is its position in the grid (Integer), the same as its answer choice
+    public void setGuessClickListener(OnClickListener listener) {
+        guessClickListener = listener;
+        for (int i = 0; i < getChildCount(); i++)
+            getChildAt(i).setOnClickListener(listener);
+    }
+
+    // shows count Buttons, inflating only those never shown before - the only call that changes the layout
+    public void setButtonCount(int count) {
+        if (count == buttonCount)
+            return;
+
+        LayoutInflater inflater = null;
+        while (getChildCount() < count) {
+            if (inflater == null)
+                inflater = LayoutInflater.from(getContext());
+            Button button = (Button) inflater.inflate(R.layout.guess_button, this, false);
+            button.setTag(getChildCount());
+            button.setOnClickListener(guessClickListener);
+            addView(button);
+        }
+
+        for (int i = 0; i < getChildCount(); i++)
+            getChildAt(i).setVisibility(i < count ? View.VISIBLE : View.GONE);
+        buttonCount = count;
+    }
+
+    public int getButtonCount() {
+        return buttonCount;
+    }
+
+    public Button getButton(int index) {
+        return (Button) getChildAt(index);
+    }
+
+    // sets the text of a Button, unless it already shows it - e.g. the same country two questions in a row
+    public void setLabel(int index, CharSequence label) {
+        Button button = getButton(index);
+        if (!TextUtils.equals(button.getText(), label))
+            button.setText(label);
+    }
+
+
+
+
+
+    // every column gets the same width, every row the height of the tallest Button
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int width = MeasureSpec.getSize(widthMeasureSpec);
+        int columnWidth = Math.max(0, (width - getPaddingLeft() - getPaddingRight()) / COLUMNS);
+        int columnWidthSpec = MeasureSpec.makeMeasureSpec(columnWidth, MeasureSpec.EXACTLY);
+
+        int rowHeight = 0;
+        for (int i = 0; i < buttonCount; i++) {
+            View child = getChildAt(i);
+            child.measure(columnWidthSpec, MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED));
+            rowHeight = Math.max(rowHeight, child.getMeasuredHeight());
+        }
+
+        // stretch the shorter Buttons, like the match_parent Buttons of the old rows
+        int rowHeightSpec = MeasureSpec.makeMeasureSpec(rowHeight, MeasureSpec.EXACTLY);
+        for (int i = 0; i < buttonCount; i++) {
+            View child = getChildAt(i);
+            if (child.getMeasuredHeight() != rowHeight)
+                child.measure(columnWidthSpec, rowHeightSpec);
+        }
+
+        int rows = (buttonCount + COLUMNS - 1) / COLUMNS;
+        int height = rows * rowHeight + getPaddingTop() + getPaddingBottom();
+        setMeasuredDimension(resolveSize(width, widthMeasureSpec), resolveSize(height, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+        for (int i = 0; i < buttonCount; i++) {
+            View child = getChildAt(i);
+            int x = getPaddingLeft() + (i % COLUMNS) * child.getMeasuredWidth();
+            int y = getPaddingTop() + (i / COLUMNS) * child.getMeasuredHeight();
+            child.layout(x, y, x + child.getMeasuredWidth(), y + child.getMeasuredHeight());
+        }
+    }
+
+    @Override
+    protected LayoutParams generateDefaultLayoutParams() {
+        return new LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.WRAP_CONTENT);
+    }
+
+    // the grid never scrolls, so pressed Buttons can show it right away
+    @Override
+    public boolean shouldDelayChildPressedState() {
+        return false;
+    }
+}
@@ -0,0 +1,120 @@
+// LatencyHistogram.java
+// Lock-free histogram of durations with log-linear buckets (HdrHistogram style, about 12% precision)
+package com.ahsan.a47_dietel_flagquizapp;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class LatencyHistogram {
+
+    // every power of 2 is split into 2^SUB_BUCKET_BITS linear buckets, so a bucket is at most 1/8 of its values wide
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS; // enough for any positive long
+
+    private final String name; // printed by dump, e.g. "decode"
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT); // number of values recorded in every bucket
+    private final AtomicLong sum = new AtomicLong(); // of all recorded values, for the mean
+    private final AtomicLong max = new AtomicLong();
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // records one duration in nanoseconds - safe to call from any thread, never blocks or allocates
+    public void record(long nanos) {
+        if (nanos < 0)
+            nanos = 0; // clock went backwards
+
+        counts.incrementAndGet(bucketIndex(nanos));
+        sum.addAndGet(nanos);
+
+        long currentMax = max.get();
+        while (nanos > currentMax && !max.compareAndSet(currentMax, nanos))
+            currentMax = max.get();
+    }
+
+    // values below SUB_BUCKETS get a bucket each; above that, the top SUB_BUCKET_BITS + 1 bits select the bucket
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS)
+            return (int) value;
+
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    // smallest value that falls into bucket
+    static long bucketLowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS)
+            return bucket;
+
+        int shift = bucket / SUB_BUCKETS - 1;
+        return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+    }
+
+    // largest value that falls into bucket
+    static long bucketUpperBound(int bucket) {
+        return bucket + 1 < BUCKET_COUNT ? bucketLowerBound(bucket + 1) - 1 : Long.MAX_VALUE;
+    }
+
+
+
+
+
+    public long count() {
+        long count = 0;
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++)
+            count += counts.get(bucket);
+        return count;
+    }
+
+    public long max() {
+        return max.get();
+    }
+
+    public double mean() {
+        long count = count();
+        return count == 0 ? 0 : (double) sum.get() / count;
+    }
+
+    // value (nanoseconds) that percentile percent of the recorded values don't exceed - the upper bound of its bucket,
+    // never more than the largest recorded value. Values recorded while this runs may or may not be counted.
+    public long valueAtPercentile(double percentile) {
+        long count = count();
+        if (count == 0)
+            return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= rank)
+                return Math.min(bucketUpperBound(bucket), max());
+        }
+        return max();
+    }
+
+    public void reset() {
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++)
+            counts.set(bucket, 0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    // appends one line in the stable format QuizMetrics dumps - times in microseconds:
+    // histogram <name> count=<n> mean_us=<x> p50_us=<x> p90_us=<x> p99_us=<x> max_us=<x>
+    public void dump(StringBuilder out) {
+        out.append("histogram ").append(name)
+                .append(" count=").append(count())
+                .append(" mean_us=").append(Math.round(mean() / 1000))
+                .append(" p50_us=").append(valueAtPercentile(50) / 1000)
+                .append(" p90_us=").append(valueAtPercentile(90) / 1000)
+                .append(" p99_us=").append(valueAtPercentile(99) / 1000)
+                .append(" max_us=").append(max() / 1000)
+                .append('\n');
+    }
+}
@@ -9,7 +9,8 @@ import android.content.SharedPreferences.OnSharedPreferenceChangeListener;
 import android.content.pm.ActivityInfo;
 import android.content.res.Configuration;
 import android.os.Bundle;
-import android.preference.PreferenceManager;
+import android.os.Handler;
+import android.os.Trace;
 import android.support.v7.app.AppCompatActivity;
 import android.support.v7.widget.Toolbar;
 import android.util.Log;
@@ -17,6 +18,7 @@ import android.view.Menu;
 import android.view.MenuItem;
 import android.widget.Toast;
 
+import java.io.File;
 import java.util.Set;
 
 public class MainActivity extends AppCompatActivity {
@@ -26,9 +28,34 @@ public class MainActivity extends AppCompatActivity {
     // keys for reading data from SharedPreferences, You’ll use these to access the preference values.
     public static final String CHOICES = "pref_numberOfChoices";//Key value of ListPreference in preferences.xml
     public static final String REGIONS = "pref_regionsToInclude";//Key value of MultiSelectListPreference in preferences.xml
+    public static final String QUIZ_LENGTH = "pref_quizLength";//Key value of ListPreference in preferences.xml
+    public static final String ADAPTIVE = "pref_adaptive";//Key value of CheckBoxPreference in preferences.xml
+    public static final String DAILY = "pref_dailyChallenge";//Key value of CheckBoxPreference in preferences.xml
+    public static final String TIMED = "pref_timedMode";//Key value of CheckBoxPreference in preferences.xml
+    public static final String NEXT_QUESTION_DELAY = "pref_nextQuestionDelay";//Key value of ListPreference in preferences.xml
+
+    // preference changes are collected and applied together - on a phone when the settings screen closes,
+    // on a tablet (settings next to the quiz) once the user stopped changing them for this long
+    private static final long RECONFIGURE_DELAY_MILLIS = 1000;
+
+    // kinds of preference changes - each needs a different amount of work
+    private static final int CHANGED_CHOICES = 1; // new guess Button layout, the current question goes on
+    private static final int CHANGED_REGIONS = 2; // new quiz
+    private static final int CHANGED_MODE = 4; // new quiz
+    private static final int CHANGED_LENGTH = 8; // new quiz
+    private static final int CHANGED_DELAY = 16; // the current quiz goes on, with the new pause between questions
+    private static final int CHANGED_ALL = CHANGED_CHOICES | CHANGED_REGIONS | CHANGED_MODE | CHANGED_LENGTH | CHANGED_DELAY;
+    private static final int CHANGED_QUIZ = CHANGED_REGIONS | CHANGED_MODE | CHANGED_LENGTH; // changes the current quiz can't survive
 
     private boolean phoneDevice = true; // used to force portrait mode
-    private boolean preferencesChanged = true; // specifies whether the app’s preferences have changed—if so, the MainActivity’s onStart lifecycle method (Section 4.6.4) will call the MainActivityFragment’s methods updateGuessRows (Section 4.7.4) and updateRegions (Section 4.7.5) to reconfigure the quiz, based on the new settings
+    private SharedPreferences preferences; // the app's preferences, null until StartupLoader has read them
+    // which preferences changed since the quiz was last configured (CHANGED_ bits) - all of them before the first quiz.
+    // If any did, onStart (or the delayed reconfigureQuiz) calls the MainActivityFragment’s methods updateGuessRows (Section 4.7.4)
+    // and updateRegions (Section 4.7.5) to reconfigure the quiz, based on the new settings
+    private int preferencesChanged = CHANGED_ALL;
+    private boolean started; // between onStart and onStop
+    private boolean quizConfigured; // the first quiz was configured - later quiz changes come from the user
+    private final Handler handler = new Handler(); // runs reconfigureQuiz a moment after the last preference change
 
     // configure the MainActivity
     @Override
@@ -42,11 +69,9 @@ public class MainActivity extends AppCompatActivity {
         Log.i(TAG, "Regions has following values:" + REGIONS);
 
 
-        // set default values in the app's SharedPreferences
-        PreferenceManager.setDefaultValues(this, R.xml.preferences, false);//false indicates that the default preference values should be set only the first time this method is called.
-
-        // register listener for SharedPreferences changes
-        PreferenceManager.getDefaultSharedPreferences(this).registerOnSharedPreferenceChangeListener(preferenceChangeListener);
+        // read the preferences (setting their default values) and the flag catalog on background threads - the fragment
+        // shows a placeholder until startupCallback gets them
+        StartupLoader.load(this, startupCallback);
 
         // first you combine the value of screenLayout with Configuration.SCREENLAYOUT_SIZE_MASK using the bitwise AND (&) operator.
         int screenSize = getResources().getConfiguration().screenLayout & Configuration.SCREENLAYOUT_SIZE_MASK;
@@ -67,30 +92,48 @@ public class MainActivity extends AppCompatActivity {
 
 
 
+    // called on the main thread once the preferences and flag catalog are loaded - from onCreate itself if they already were
+    private StartupLoader.Callback startupCallback = new StartupLoader.Callback() {
+        @Override
+        public void onStartupComplete(FlagRepository repository, SharedPreferences sharedPreferences) {
+            preferences = sharedPreferences;
+
+            // register listener for SharedPreferences changes
+            preferences.registerOnSharedPreferenceChangeListener(preferenceChangeListener);
+
+            MainActivityFragment quizFragment = (MainActivityFragment) getSupportFragmentManager().findFragmentById(R.id.quizFragment);
+            quizFragment.onStartupComplete(repository);
+            if (preferencesChanged != 0)
+                configureQuiz(quizFragment);
+        }
+
+        // there's no quiz without the flags - say so instead of showing "Loading flags…" forever
+        @Override
+        public void onStartupFailed(RuntimeException error) {
+            Toast.makeText(MainActivity.this, R.string.loading_failed, Toast.LENGTH_LONG).show();
+            finish();
+        }
+    };
+
+
+
+
+
     // listener for changes to the app's SharedPreferences
     private OnSharedPreferenceChangeListener preferenceChangeListener = new OnSharedPreferenceChangeListener() {
         // called when the user changes the app's preferences
         @Override
         public void onSharedPreferenceChanged(SharedPreferences sharedPreferences, String key) {
 
-            preferencesChanged = true;// user changed app setting
-
-            MainActivityFragment quizFragment = (MainActivityFragment) getSupportFragmentManager().findFragmentById(R.id.quizFragment);//Launch our quizFragment
-
+            // only remember what changed - toggling several regions in a row leads to one new quiz, not one per toggle
             if (key.equals(CHOICES)){// # of choices to display changed
-                quizFragment.updateGuessRows(sharedPreferences);
-                quizFragment.resetQuiz();
-
+                preferencesChanged |= CHANGED_CHOICES;
+                scheduleReconfigure(); // the current quiz goes on
             }  else if (key.equals(REGIONS)) { // regions to include changed
 
                 Set<String> regions = sharedPreferences.getStringSet(REGIONS, null);// get the Set<String> containing the enabled regions
 
-                if (regions != null && regions.size() > 0) {
-
-                    quizFragment.updateRegions(sharedPreferences);
-                    quizFragment.resetQuiz();
-
-                } else {
+                if (regions == null || regions.size() == 0) {
                     // must select one region--set North America as default
                     SharedPreferences.Editor editor = sharedPreferences.edit();
                     regions.add(getString(R.string.default_region));
@@ -99,9 +142,19 @@ public class MainActivity extends AppCompatActivity {
 
                     Toast.makeText(MainActivity.this, R.string.default_region_message, Toast.LENGTH_SHORT).show();
                 }
-            }
 
-            Toast.makeText(MainActivity.this, R.string.restarting_quiz, Toast.LENGTH_SHORT).show();
+                preferencesChanged |= CHANGED_REGIONS;
+                scheduleReconfigure();
+            } else if (key.equals(QUIZ_LENGTH)) { // number of flags per quiz changed
+                preferencesChanged |= CHANGED_LENGTH;
+                scheduleReconfigure();
+            } else if (key.equals(NEXT_QUESTION_DELAY)) { // pause after a correct answer changed
+                preferencesChanged |= CHANGED_DELAY;
+                scheduleReconfigure(); // the current quiz goes on
+            } else if (key.equals(ADAPTIVE) || key.equals(DAILY) || key.equals(TIMED)) { // weighted question selection, daily challenge or timed mode switched on or off
+                preferencesChanged |= CHANGED_MODE;
+                scheduleReconfigure();
+            }
         }
     };
 
@@ -115,15 +168,117 @@ public class MainActivity extends AppCompatActivity {
     protected void onStart() {
         super.onStart();
 
-        if (preferencesChanged){//preferencesChanged == true
-            // now that the default preferences have been set, initialize MainActivityFragment and start the quiz
-            MainActivityFragment quizFragment = (MainActivityFragment) getSupportFragmentManager().findFragmentById(R.id.quizFragment);
-            //if preferencesChanged is true, onStart calls MainActivityFragment’s updateGuessRows (Section 4.7.4) and updateRegions (Section 4.7.5) methods to reconfigure the quiz.
-            quizFragment.updateGuessRows(PreferenceManager.getDefaultSharedPreferences(this));
-            quizFragment.updateRegions(PreferenceManager.getDefaultSharedPreferences(this));
-            quizFragment.resetQuiz();
-            preferencesChanged = false;
+        started = true;
+
+        // on a cold start the preferences are still loading - startupCallback configures the quiz instead
+        if (preferencesChanged != 0 && preferences != null){// e.g. the user comes back from the settings screen
+            configureQuiz((MainActivityFragment) getSupportFragmentManager().findFragmentById(R.id.quizFragment));
+        }
+    }
+
+    // applies the collected preference changes RECONFIGURE_DELAY_MILLIS after the last one, if the quiz is on screen -
+    // otherwise onStart applies them
+    private void scheduleReconfigure() {
+        handler.removeCallbacks(reconfigureQuiz);
+        if (started)
+            handler.postDelayed(reconfigureQuiz, RECONFIGURE_DELAY_MILLIS);
+    }
+
+    private Runnable reconfigureQuiz = new Runnable() {
+        @Override
+        public void run() {
+            configureQuiz((MainActivityFragment) getSupportFragmentManager().findFragmentById(R.id.quizFragment));
         }
+    };
+
+    // now that the default preferences have been set, initialize MainActivityFragment and start the quiz -
+    // doing only the work the changed preferences need
+    private void configureQuiz(MainActivityFragment quizFragment) {
+        Trace.beginSection("FlagQuiz.configureQuiz");
+        handler.removeCallbacks(reconfigureQuiz);
+        int changed = preferencesChanged;
+        preferencesChanged = 0;
+
+        //MainActivityFragment’s updateGuessRows (Section 4.7.4) and updateRegions (Section 4.7.5) methods reconfigure the quiz.
+        if ((changed & CHANGED_CHOICES) != 0)
+            quizFragment.updateGuessRows(preferences);
+        if ((changed & CHANGED_REGIONS) != 0)
+            quizFragment.updateRegions(preferences);
+        if ((changed & CHANGED_MODE) != 0)
+            quizFragment.updateQuestionMode(preferences);
+        if ((changed & CHANGED_LENGTH) != 0)
+            quizFragment.updateQuizLength(preferences);
+        if ((changed & CHANGED_DELAY) != 0)
+            quizFragment.updateNextQuestionDelay(preferences);
+
+        if ((changed & CHANGED_QUIZ) != 0) {
+            // after a rotation or process death the quiz goes on where it was - otherwise it may hold flags of regions
+            // no longer enabled, so a new one starts
+            if (!quizFragment.restoreQuiz()) {
+                quizFragment.resetQuiz();
+                if (quizConfigured) // once per new quiz, however many preferences changed - not for the first quiz
+                    Toast.makeText(this, R.string.restarting_quiz, Toast.LENGTH_SHORT).show();
+            }
+        }
+        else if ((changed & CHANGED_CHOICES) != 0)
+            quizFragment.refreshChoices(); // same question, new number of guess Buttons
+        quizConfigured = true;
+        Trace.endSection();
+    }
+
+
+
+
+
+
+    // called when the app leaves the screen - writes the guesses of an unfinished quiz and saves the hot path timings
+    @Override
+    protected void onStop() {
+        super.onStop();
+        started = false;
+        handler.removeCallbacks(reconfigureQuiz); // changes still waiting are applied by the next onStart
+
+        FlagRepository repository = StartupLoader.getRepository(); // null if the app leaves the screen before it's loaded
+        ScoreHistoryStore scoreHistory = repository != null ? repository.getScoreHistory() : null;
+        if (scoreHistory != null) {
+            scoreHistory.commit();
+            if (scoreHistory.getWriteError() != null)
+                Log.e(TAG, "Error writing the score history", scoreHistory.getWriteError());
+        }
+
+        if (QuizMetrics.ENABLED) {
+            QuizMetrics.log();
+            QuizMetrics.writeTo(new File(getFilesDir(), QuizMetrics.FILE_NAME));
+        }
+    }
+
+
+
+
+
+
+    // an Activity destroyed during a cold start mustn't be called back
+    @Override
+    protected void onDestroy() {
+        StartupLoader.cancel(startupCallback);
+        super.onDestroy();
+    }
+
+
+
+
+
+
+    // called when the system is low on memory - let the flag cache give back what it can
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        FlagRepository repository = StartupLoader.getRepository();
+        if (repository == null)
+            return; // nothing decoded yet
+        FlagBitmapCache cache = repository.getBitmapCache();
+        cache.trimMemory(level);
+        Log.i(TAG, "onTrimMemory(" + level + "): " + cache);
     }
 
 
@@ -2,12 +2,6 @@
 // Contains the Flag Quiz logic
 package com.ahsan.a47_dietel_flagquizapp;
 
-import java.io.IOException;
-import java.io.InputStream;
-import java.security.SecureRandom;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
 import java.util.Set;
 
 import android.animation.Animator;
@@ -16,17 +10,16 @@ import android.app.AlertDialog;
 import android.app.Dialog;
 import android.content.DialogInterface;
 import android.content.SharedPreferences;
-import android.content.res.AssetManager;
-import android.graphics.drawable.Drawable;
+import android.graphics.Bitmap;
 import android.os.Bundle;
-import android.os.Handler;
 import android.support.v4.app.DialogFragment;
 import android.support.v4.app.Fragment;
+import android.util.DisplayMetrics;
 import android.util.Log;
+import android.view.Choreographer;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.View.OnClickListener;
-import android.view.ViewAnimationUtils;
 import android.view.ViewGroup;
 import android.view.animation.Animation;
 import android.view.animation.AnimationUtils;
@@ -40,37 +33,52 @@ public class MainActivityFragment extends Fragment {
     // String used when logging error messages
     private static final String TAG = "FlagQuiz Activity";
 
-    private static final int FLAGS_IN_QUIZ = 10;//represents the number of flags in the quiz
+    private static final String KEY_QUIZ_STATE = "quizState"; // QuizEngine.saveState in the saved instance state
+    private static final String KEY_RANDOM_STATE = "randomState"; // XoroshiroRandom.getState
+    private static final String KEY_TIMED_STATE = "timedState"; // TimedScorer.saveState
+    private static final String ALL_FLAGS = "all"; // QUIZ_LENGTH value of the marathon: every flag of the enabled regions
+    private static final int PREFETCH_COUNT = 3;//number of upcoming flags decoded in the background while the user answers
 
-    private List<String> fileNameList; // flag-image file names for the currently enabled geographic regions
-    private List<String> quizCountriesList; // holds the flag file names for the countries used in the current quiz
+    private QuizEngine engine; // quiz state and rules: which flags are asked, the answer choices and the score - this fragment only displays them
+    private QuizEngine.Score score = new QuizEngine.Score(); // reused copy of the engine's score
     private Set<String> regionsSet; //stores the geographic regions that are enabled
-    private String correctAnswer; // correct country for the current flag
-    private int totalGuesses; // number of guesses made
-    private int correctAnswers; // number of correct guesses
-    private int guessRows; // is the number of two-Button LinearLayouts displaying the flag answer choices—this is controlled by the app’s settings
-    private SecureRandom random; // the random-number generator used to randomly pick the flags to include in the quiz and which Button in the two-Button LinearLayouts represents the correct answer
-    private Handler handler; // When the user selects a correct answer and the quiz is not over, we use the Handler object handler to load the next flag after a short delay
+    private int quizLength = 10; // represents the number of flags in the quiz - QuizEngine.ALL_FLAGS in the marathon
+    private FlagCatalog catalog; // shared index of all flags, names and asset paths
+    private FlagLoader flagLoader; // decodes the flags of the current and next questions on background threads
+    private ScoreHistoryStore scoreHistory; // remembers every guess and quiz across launches - null if it couldn't be opened
+    private long flagVisibleTime; // System.nanoTime of the frame that first drew the current question's flag completely, 0 until then
+    private boolean timedMode; // every question has TimedScorer's time limit, and faster correct answers score more points
+    private final TimedScorer timedScorer = new TimedScorer(TimedScorer.DEFAULT_TIME_LIMIT_NANOS); // points and reaction times of the timed quiz
+    private int shownTenths = -1; // time left shown in timerTextView, in tenths of a second - the text only changes with it
+    private long nextQuestionDelay = 2000; // milliseconds the answer stays on screen before the next flag - 0 skips the animations, too
+    private XoroshiroRandom random; // the random-number generator the engine uses to randomly pick the flags to include in the quiz and which guess Button represents the correct answer
+    private boolean dailyChallenge; // every user gets the same quiz today, drawn from all regions with the day's seed
+    private Bundle savedQuiz; // state saved by the previous instance of this fragment (rotation, process death) - used once by restoreQuiz
+    private QuizTransitionController transitions; // When the user selects a correct answer and the quiz is not over, transitions shows the next flag after a short delay, animating the quiz off and back onto the screen
     private Animation shakeAnimation; // holds the dynamically inflated shake animation that’s applied to the flag image when an incorrect guess is made.
 
     private LinearLayout quizLinearLayout; // layout that contains the quiz
     private TextView questionNumberTextView; // shows current question #
+    private TextView timerTextView; // time left to answer in timed mode
     private ImageView flagImageView; // displays a flag
-    private LinearLayout[] guessLinearLayouts; // rows of answer Buttons
+    private GuessGridLayout guessGridLayout; // answer Buttons - as many as the app's settings ask for, reused for every question
     private TextView answerTextView; // displays correct answer
 
+    // QuizMetrics state - only used when QuizMetrics.ENABLED
+    private FrameDropMonitor frameDropMonitor; // counts frames missed while quizLinearLayout animates
+    private long viewCreatedTime; // when onCreateView ran, until the first flag is shown (then 0)
+    private long clickTime; // when the last guess Button was clicked
+
 
 
     // configures the MainActivityFragment when its View is created
     @Override
     public View onCreateView(LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
+        if (QuizMetrics.ENABLED)
+            viewCreatedTime = QuizMetrics.now();
+        savedQuiz = savedInstanceState;
         View view =  inflater.inflate(R.layout.fragment_main, container, false);//false is A boolean indicating whether or not the inflated GUI needs to be attached to the ViewGroup in the second argument. In a fragment’s onCreateView method, thisshould always be false
 
-        fileNameList = new ArrayList<>();//stores the flag-image file names for the currently enabled geographical regions
-        quizCountriesList = new ArrayList<>();//holds the names of the countries in the current quiz
-        random = new SecureRandom();
-        handler = new Handler();
-
         // load the shake animation that's used for incorrect answers
         shakeAnimation = AnimationUtils.loadAnimation(getActivity(),R.anim.incorrect_shake);//inherited Fragment method getActivity returns the Activity that hosts this Fragment-Activity is an indirect subclass of Context
         shakeAnimation.setRepeatCount(3);// animation repeats 3 times
@@ -78,48 +86,104 @@ public class MainActivityFragment extends Fragment {
         // get references to GUI components
         quizLinearLayout = (LinearLayout) view.findViewById(R.id.quizLinearLayout);
         questionNumberTextView = (TextView) view.findViewById(R.id.questionNumberTextView);
+        timerTextView = (TextView) view.findViewById(R.id.timerTextView);
         flagImageView = (ImageView) view.findViewById(R.id.flagImageView);
-        guessLinearLayouts = new LinearLayout[4];
-        guessLinearLayouts[0] = (LinearLayout) view.findViewById(R.id.row1LinearLayout);
-        guessLinearLayouts[1] = (LinearLayout) view.findViewById(R.id.row2LinearLayout);
-        guessLinearLayouts[2] = (LinearLayout) view.findViewById(R.id.row3LinearLayout);
-        guessLinearLayouts[3] = (LinearLayout) view.findViewById(R.id.row4LinearLayout);
+        guessGridLayout = (GuessGridLayout) view.findViewById(R.id.guessGridLayout);
         answerTextView = (TextView) view.findViewById(R.id.answerTextView);
 
+        frameDropMonitor = new FrameDropMonitor(getActivity().getWindowManager().getDefaultDisplay().getRefreshRate());
+        transitions = new QuizTransitionController(quizLinearLayout, transitionListener, QuizMetrics.ENABLED ? frameMonitorListener : null);
 
 
 
-        // configure listeners for the guess Buttons
-        for (LinearLayout row : guessLinearLayouts) {
-            for (int column = 0; column < row.getChildCount(); column++) {
-                Button button = (Button) row.getChildAt(column);
-                button.setOnClickListener(guessButtonListener);
-            }
-        }
 
-        // set questionNumberTextView's text
-        questionNumberTextView.setText(getString(R.string.question, 1, FLAGS_IN_QUIZ));//Question %1$d of %2$d String contains placeholders for two integer values
+        // configure the listener for the guess Buttons - each Button's tag is its position among the engine's answer choices
+        guessGridLayout.setGuessClickListener(guessButtonListener);
+
+        // placeholder for the first frame: no guess Buttons until the flag catalog and the preferences are loaded
+        // (see StartupLoader) - updateGuessRows creates them
+        questionNumberTextView.setText(R.string.loading_quiz);
 
         return view;//returns the MainActivityFragment’s GUI.
     }
 
+    // called by MainActivity once StartupLoader has loaded the flags, before the first updateGuessRows and resetQuiz
+    public void onStartupComplete(FlagRepository repository) {
+        catalog = repository.getCatalog();
+        random = new XoroshiroRandom(); // fast and seedable - the quiz has no security needs, so no SecureRandom
+        engine = new QuizEngine(catalog, random);
+        flagLoader = new FlagLoader(repository);
+        scoreHistory = repository.getScoreHistory();
+    }
+
+    // the engine behind the displayed quiz, null until startup finished - lets tests find the correct guess Button
+    QuizEngine getEngine() {
+        return engine;
+    }
+
+    // true while flags are decoded in the background - lets tests wait until the current flag is shown
+    boolean isLoadingFlags() {
+        return flagLoader != null && flagLoader.hasPendingDecodes();
+    }
+
+    // moves the quiz between questions - lets tests stop a transition halfway
+    QuizTransitionController getTransitions() {
+        return transitions;
+    }
+
+    // saves the quiz in progress as a few ints, so a rotation or process death doesn't start a new one (see restoreQuiz)
+    @Override
+    public void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+
+        int[] quizState = engine != null ? engine.saveState() : null;
+        if (quizState != null) {
+            outState.putIntArray(KEY_QUIZ_STATE, quizState);
+            outState.putLongArray(KEY_RANDOM_STATE, random.getState());
+            outState.putIntArray(KEY_TIMED_STATE, timedScorer.saveState());
+        } else if (savedQuiz != null && savedQuiz.containsKey(KEY_QUIZ_STATE)) {
+            // recreated again before startup finished - keep passing on the quiz of the first instance
+            outState.putIntArray(KEY_QUIZ_STATE, savedQuiz.getIntArray(KEY_QUIZ_STATE));
+            outState.putLongArray(KEY_RANDOM_STATE, savedQuiz.getLongArray(KEY_RANDOM_STATE));
+            outState.putIntArray(KEY_TIMED_STATE, savedQuiz.getIntArray(KEY_TIMED_STATE));
+        }
+    }
+
+    // drops pending flag decodes and transitions so they can't call back into a destroyed view
+    @Override
+    public void onDestroyView() {
+        if (flagLoader != null) // null if the view goes away before startup finished
+            flagLoader.cancelAll();
+        transitions.cancel();
+        frameDropMonitor.stop();
+        Choreographer.getInstance().removeFrameCallback(feedbackFrameCallback);
+        Choreographer.getInstance().removeFrameCallback(flagFrameCallback);
+        super.onDestroyView();
+    }
+
 
 
 
 
-    // update guessRows based on values in SharedPreferences- is called from the app’s MainActivity when the app is launched and each time the user changes the number of guess Buttons to display with each flag.
+    // update the number of guess Buttons based on values in SharedPreferences- is called from the app’s MainActivity when the app is launched and each time the user changes the number of guess Buttons to display with each flag.
     public void updateGuessRows(SharedPreferences sharedPreferences) {
         // get the number of guess buttons that should be displayed
         String choices = sharedPreferences.getString(MainActivity.CHOICES, null);//MainActivity.CHOICES—a constant containing the name of the preference in which the SettingsActivityFragment stores the number of guess Buttons to display.
-        guessRows = Integer.parseInt(choices) / 2;//converts the preference’s value to an int and divides it by 2 to determine the value for guessRows, which indicates how many of the guessLinearLayouts should be displayed
+        engine.setChoiceCount(Integer.parseInt(choices));//converts the preference’s value to an int - the engine keeps it between 2 and QuizEngine.MAX_CHOICES
+
+        // show that many Buttons - only Buttons never shown before are inflated, the others are reused
+        guessGridLayout.setButtonCount(engine.getConfiguredChoiceCount());
+    }
+
+
+
+
 
-        // hide all guess button LinearLayouts
-        for (LinearLayout layout : guessLinearLayouts)//Iterate through all 4 guessLinearLayouts[4] array
-            layout.setVisibility(View.GONE);
 
-        // display appropriate guess button LinearLayouts
-        for (int row = 0; row < guessRows; row++)
-            guessLinearLayouts[row].setVisibility(View.VISIBLE);
+    // update the number of flags in the quiz based on values in SharedPreferences
+    public void updateQuizLength(SharedPreferences sharedPreferences) {
+        String length = sharedPreferences.getString(MainActivity.QUIZ_LENGTH, "10");
+        quizLength = length.equals(ALL_FLAGS) ? QuizEngine.ALL_FLAGS : Integer.parseInt(length);
     }
 
 
@@ -138,50 +202,113 @@ public class MainActivityFragment extends Fragment {
 
 
 
-    // set up and start the next quiz
-    public void resetQuiz(){
-        // use AssetManager to get image file names for enabled regions
-        AssetManager assets = getActivity().getAssets();
-        fileNameList.clear();// empty list of image file names
-
-        try{
-            // iterate through all ENABLED world regions.
-            for (String region: regionsSet){
-                //We use AssetManager’s list method to get an array of the flag-image file names, which we store in the String array paths
-                String[] paths = assets.list(region);//assets.list = Return a String array of all the assets at the given path.
-
-                for (String path : paths){
-                    fileNameList.add(path.replace(".png", ""));//remove the .png extension from each file name and place the names in the fileNameList.
-                }
-            }
+    // update the pause after a correct answer based on values in SharedPreferences - the current quiz goes on
+    public void updateNextQuestionDelay(SharedPreferences sharedPreferences) {
+        nextQuestionDelay = Long.parseLong(sharedPreferences.getString(MainActivity.NEXT_QUESTION_DELAY, "2000"));
+    }
 
-        } catch (IOException exception) {
-            Log.e(TAG, "Error loading image file names", exception);
-        }
 
-        correctAnswers = 0; // reset the number of correct answers made
-        totalGuesses = 0; // reset the total number of guesses the user made
-        quizCountriesList.clear(); // clear prior list of quiz countries
 
-        int flagCounter = 1;
-        int numberOfFlags = fileNameList.size();
 
-        // add 10 (FLAGS_IN_QUIZ) randomly selected file names to the quizCountriesList
-        while (flagCounter <= FLAGS_IN_QUIZ){
-            int randomIndex = random.nextInt(numberOfFlags);
 
-            // get the random file name
-            String filename = fileNameList.get(randomIndex);
 
-            // if the region is enabled and it hasn't already been chosen
-            if (!quizCountriesList.contains(filename)){
-                quizCountriesList.add(filename);// add the file to the list
-                ++flagCounter;
-            }
+    // switch between uniform, weighted (adaptive) and daily challenge quiz flags based on the ADAPTIVE and DAILY preferences,
+    // and timed mode on or off based on the TIMED preference
+    public void updateQuestionMode(SharedPreferences sharedPreferences) {
+        timedMode = sharedPreferences.getBoolean(MainActivity.TIMED, false);
+        timerTextView.setVisibility(timedMode ? View.VISIBLE : View.GONE);
+
+        boolean daily = sharedPreferences.getBoolean(MainActivity.DAILY, false);
+        if (dailyChallenge && !daily)
+            random.setSeed(System.nanoTime()); // leaving the daily challenge - don't keep replaying today's sequence
+        dailyChallenge = daily;
+
+        if (dailyChallenge || !sharedPreferences.getBoolean(MainActivity.ADAPTIVE, false)) { // the daily quiz must not depend on the user's history
+            engine.setAdaptivePicker(null);
+        } else if (engine.getAdaptivePicker() == null) {
+            // weights start from the whole score history, then the engine updates them with every guess
+            ScoreStats history = scoreHistory != null ? scoreHistory.getStats() : null;
+            engine.setAdaptivePicker(new AdaptiveQuestionPicker(catalog.size(), history, System.currentTimeMillis()));
         }
+    }
+
+
+
+
+
+
+
+    // set up and start the next quiz
+    public void resetQuiz(){
+        long start = QuizMetrics.ENABLED ? QuizMetrics.now() : 0;
+
+        selectRegions();
+        if (dailyChallenge) // same regions and same seed on every device, so everyone gets the same flags and choices today
+            random.setSeed(XoroshiroRandom.dailySeed(System.currentTimeMillis()));
+
+        flagLoader.cancelAll(); // flags prefetched for the previous quiz aren't needed anymore
+        transitions.cancel(); // the previous quiz's pause or animation mustn't load a flag into this one
+        updateFlagTargetSize();
+        timedScorer.reset();
+
+        // start a quiz of quizLength random flags (fewer if the enabled regions don't have that many) and reset the score -
+        // the engine draws them one question at a time, so even a marathon over every flag starts instantly
+        engine.reset(quizLength);
 
         loadNextFlag(); // start the quiz by loading the first flag
 
+        if (QuizMetrics.ENABLED)
+            QuizMetrics.RESET_QUIZ.record(QuizMetrics.now() - start);
+    }
+
+    // select the flags of the ENABLED world regions from the flag catalog (loaded once per process) - no asset listing needed,
+    // and only regions switched on or off since the last quiz are touched
+    private void selectRegions() {
+        if (dailyChallenge)
+            engine.resetRegions((1 << catalog.regionCount()) - 1);
+        else
+            engine.setRegions(catalog.regionMask(regionsSet));
+    }
+
+    // continues the quiz saved by the previous instance of this fragment instead of starting a new one - same question,
+    // choices, guesses and score, with the flag usually still in the bitmap cache. Returns false if there is none to continue.
+    public boolean restoreQuiz() {
+        Bundle saved = savedQuiz;
+        savedQuiz = null; // only once - later changes of the settings start new quizzes
+        if (saved == null || !saved.containsKey(KEY_QUIZ_STATE))
+            return false;
+
+        selectRegions();
+        if (!engine.restoreState(saved.getIntArray(KEY_QUIZ_STATE)))
+            return false; // e.g. saved with other regions enabled
+        random.setState(saved.getLongArray(KEY_RANDOM_STATE)); // the rest of the quiz is drawn as if it never stopped
+        if (!timedScorer.restoreState(saved.getIntArray(KEY_TIMED_STATE)))
+            timedScorer.reset();
+
+        flagLoader.cancelAll();
+        updateFlagTargetSize();
+        showQuestion();
+
+        if (engine.isTimedOut()) { // its time ran out just before the restart
+            answerTextView.setText(getString(R.string.time_up, catalog.displayName(engine.getCorrectAnswerId())));
+            answerTextView.setTextColor(getResources().getColor(R.color.incorrect_answer, getContext().getTheme()));
+            if (engine.hasNextQuestion())
+                scheduleNextFlag();
+        } else if (!engine.isQuestionOpen()) { // answered correctly just before the restart
+            answerTextView.setText(getString(R.string.correct_answer, catalog.displayName(engine.getCorrectAnswerId())));
+            answerTextView.setTextColor(getResources().getColor(R.color.correct_answer, getContext().getTheme()));
+            if (engine.hasNextQuestion())
+                scheduleNextFlag(); // the results dialog of a finished quiz comes back by itself
+        } else {
+            for (int choice = 0; choice < engine.getUsedChoiceCount(); choice++) {
+                if (engine.isChoiceGuessed(choice)) { // the last guess was wrong
+                    answerTextView.setText(R.string.incorrect_answer);
+                    answerTextView.setTextColor(getResources().getColor(R.color.incorrect_answer, getContext().getTheme()));
+                    break;
+                }
+            }
+        }
+        return true;
     }
 
 
@@ -190,133 +317,225 @@ public class MainActivityFragment extends Fragment {
 
 
     //Method loadNextFlag loads and displays the next flag and the corresponding set of answer Buttons.
-    //The image file names in quizCountriesList have the format(regionName-countryName) without the .png extension. If a regionName or countryName contains multiple words, they’re separated by underscores (_).
     private void loadNextFlag(){
-        //We remove the first name from quizCountriesList and stores it in nextImage.We also save this in correctAnswer so it can be used later to determine whether the user made a correct guess
-        String nextImage = quizCountriesList.remove(0);
-        correctAnswer = nextImage;// update the correct answer
+        //The engine moves to the next question and returns the id of its flag, which it also keeps to check the user's guesses
+        engine.nextQuestion();
+        showQuestion();
+    }
 
-        Log.i(TAG, "Correct answer for this question is: " + correctAnswer);
+    // displays the engine's current question: its number, flag and answer Buttons
+    private void showQuestion() {
+        int correctAnswerId = engine.getCorrectAnswerId();
+        engine.snapshot(score);
+        flagVisibleTime = 0;
+        Choreographer.getInstance().removeFrameCallback(flagFrameCallback); // the previous flag's countdown, if it's still running
+        shownTenths = -1;
+        if (timedMode)
+            showTimeLeft(timedScorer.getTimeLimitNanos());
+
+        if (BuildConfig.DEBUG) // constant - release builds compile the message (and its String concatenation) away
+            Log.i(TAG, "Correct answer for this question is: " + catalog.fileName(correctAnswerId));
         answerTextView.setText(""); // clear answerTextView
 
         // display the current question number in the questionNumberTextView using the formatted String resource R.string.question.
-        questionNumberTextView.setText(getString(R.string.question, (correctAnswers + 1), FLAGS_IN_QUIZ));
-
-        // extracts the region from nextImage the region to be used as the assets subfolder name from which we’ll load the image
-        String region = nextImage.substring(0, nextImage.indexOf('-'));//quizCountriesList have the format(regionName-countryName)
+        questionNumberTextView.setText(getString(R.string.question, score.questionNumber, score.flagsInQuiz));
 
-        // use AssetManager to load next image from assets folder
-        AssetManager assets = getActivity().getAssets();
+        // display the flag as soon as it's decoded - usually right away, since it was prefetched during the previous question
+        flagLoader.load(correctAnswerId, flagLoadedListener);
 
-        // get an InputStream to the asset representing the next flag and try to use the InputStream
-        try(InputStream stream = assets.open(region + "/" + nextImage + ".png")){
-            // load the asset as a Drawable and display on the flagImageView
-            Drawable flag = Drawable.createFromStream(stream, nextImage);
-            flagImageView.setImageDrawable(flag);
+        // decode the next flags in the background while the user is answering this one
+        for (int ahead = 1; ahead <= PREFETCH_COUNT && engine.getUpcomingFlag(ahead) >= 0; ahead++)
+            flagLoader.prefetch(engine.getUpcomingFlag(ahead));
 
-            animate(false); // animate the flag onto the screen
+        showChoices();
+    }
 
+    // new number of guess Buttons (see updateGuessRows) without a new quiz: the current question keeps its flag and score,
+    // only its answer choices are picked again
+    public void refreshChoices() {
+        engine.refreshChoices();
+        showChoices();
+    }
 
-        } catch (IOException exception) {
-            Log.e(TAG, "Error loading " + nextImage, exception);
+    // label the guess Buttons with the current question's choices - only the texts and enabled states change, which
+    // GuessGridLayout handles without a layout pass
+    private void showChoices() {
+        for (int choice = 0; choice < guessGridLayout.getButtonCount(); choice++){
+            // get country name and set it as the Button's text - unused Buttons stay blank if there are too few enabled flags,
+            // and all of them stay disabled once the question was answered
+            boolean used = choice < engine.getUsedChoiceCount();
+            guessGridLayout.getButton(choice).setEnabled(used && engine.isQuestionOpen() && !engine.isChoiceGuessed(choice));
+            guessGridLayout.setLabel(choice, used ? catalog.displayName(engine.getChoice(choice)) : "");
         }
+    }
 
-        Collections.shuffle(fileNameList); // shuffle file names
-
-        //locate the correctAnswer and move it to the end of the fileNameList—later we’ll insert this answer randomly into the one of the guess Buttons.
-        int correct = fileNameList.indexOf(correctAnswer);
-        fileNameList.add(fileNameList.remove(correct));
+    // called on the UI thread once the flag of a question is decoded
+    private FlagLoader.Callback flagLoadedListener = new FlagLoader.Callback() {
+        @Override
+        public void onFlagLoaded(int flagId, Bitmap flag) {
+            if (flagId != engine.getCorrectAnswerId())
+                return; // flag of a question that is no longer displayed
+
+            flagImageView.setImageBitmap(flag);
+            // animate the flag onto the screen - it counts as visible once the animation ended (see transitionListener).
+            // No animation for the first flag, or without a pause between the flags (then the previous one wasn't
+            // animated off either)
+            transitions.reveal(score.questionNumber > 1 && nextQuestionDelay > 0);
+
+            if (QuizMetrics.ENABLED && viewCreatedTime != 0) {
+                QuizMetrics.TIME_TO_FIRST_FLAG.record(QuizMetrics.now() - viewCreatedTime);
+                viewCreatedTime = 0;
+            }
+        }
+    };
 
-        // add 2, 4, 6 or 8 guess Buttons based on the value of guessRows
-        for (int row = 0; row < guessRows; row++){
-            // place Buttons in currentTableRow
-            for (int column = 0; column < guessLinearLayouts[row].getChildCount(); column++){
-                // get reference to Button to configure
-                Button newGuessButton = (Button) guessLinearLayouts[row].getChildAt(column);
-                newGuessButton.setEnabled(true);
+    // starts timing the current question with the next frame, the first one that draws its flag completely
+    private void watchFlag() {
+        Choreographer.getInstance().removeFrameCallback(flagFrameCallback);
+        Choreographer.getInstance().postFrameCallback(flagFrameCallback);
+    }
 
-                // get country name and set it as newGuessButton's text
-                String filename = fileNameList.get((row * 2) + column);
-                newGuessButton.setText(getCountryName(filename));
+    // runs at the start of the frame that first draws the flag completely, then, in timed mode, of every frame until the
+    // question is answered: one callback per frame counts down instead of repeated Handler posts, and it ends the
+    // question in the very frame its time runs out. Frame times use the System.nanoTime clock, like the guess clicks.
+    private Choreographer.FrameCallback flagFrameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (flagVisibleTime == 0) {
+                flagVisibleTime = frameTimeNanos;
+                if (timedMode && engine.isQuestionOpen())
+                    timedScorer.flagVisible(frameTimeNanos);
             }
-         }
+            if (!timedScorer.isTiming())
+                return;
+
+            long remaining = timedScorer.remainingNanos(frameTimeNanos);
+            showTimeLeft(remaining);
+            if (remaining == 0)
+                timeOut();
+            else
+                Choreographer.getInstance().postFrameCallback(this);
+        }
+    };
+
+    // shows the time left, rounded up to a tenth of a second - a new text only ten times a second, and since timerTextView
+    // is as wide as the screen, changing it doesn't need a new layout pass
+    private void showTimeLeft(long remainingNanos) {
+        int tenths = (int) ((remainingNanos + 99999999) / 100000000);
+        if (tenths == shownTenths)
+            return;
+        shownTenths = tenths;
+        timerTextView.setText(getString(R.string.time_left, tenths / 10, tenths % 10));
+    }
 
-        // randomly replace one Button with the correct answer
-        int row = random.nextInt(guessRows); // pick random row
-        int column = random.nextInt(2); // pick random column
-        LinearLayout randomRow = guessLinearLayouts[row]; // get the row
-        String countryName = getCountryName(correctAnswer);
-        ((Button) randomRow.getChildAt(column)).setText(countryName);
+    // the current question's time ran out: it's closed unanswered, showing the correct answer, and the quiz goes on
+    private void timeOut() {
+        int result = engine.timeOut();
+        if (result == QuizEngine.GUESS_IGNORED)
+            return;
+        timedScorer.timeOut();
 
-        }
+        if (scoreHistory != null) // counts as a wrong guess at the flag, without a reaction time
+            scoreHistory.recordGuess(engine.getCorrectAnswerId(), false, -1);
 
-    // parses the country flag file name and returns the country name
-    private String getCountryName(String name) {
+        answerTextView.setText(getString(R.string.time_up, catalog.displayName(engine.getCorrectAnswerId())));
+        answerTextView.setTextColor(getResources().getColor(R.color.incorrect_answer, getContext().getTheme()));
+        disableButtons();
 
-        String modifiedName = name.substring(name.indexOf('-') + 1).replace('_', ' ');//NOTE: Edited by me
-        Log.i(TAG, "Old name: " + name + ", and now new name is: " + modifiedName);
-        return modifiedName;
+        if (result == QuizEngine.QUIZ_COMPLETE)
+            showResults();
+        else
+            scheduleNextFlag();
     }
 
+    // runs at the start of the first frame after a guess was handled - the frame that draws its result
+    private Choreographer.FrameCallback feedbackFrameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            QuizMetrics.CLICK_TO_FEEDBACK.record(QuizMetrics.now() - clickTime);
+        }
+    };
 
-    // animates the entire quizLinearLayout on or off screen
-    private void animate(boolean animateOut) {
-        // prevent animation into the the UI for the first flag
-        if (correctAnswers == 0)
-            return;
+    // watches for dropped frames from the start to the end of every quiz animation
+    private AnimatorListenerAdapter frameMonitorListener = new AnimatorListenerAdapter() {
+        @Override
+        public void onAnimationStart(Animator animation) {
+            frameDropMonitor.start();
+        }
 
-        // calculate center x and center y
-        int centerX = (quizLinearLayout.getLeft() + quizLinearLayout.getRight()) / 2; // calculate center x
-        int centerY = (quizLinearLayout.getTop() + quizLinearLayout.getBottom()) / 2; // calculate center y
-
-        // calculate animation radius
-        int radius = Math.max(quizLinearLayout.getWidth(), quizLinearLayout.getHeight());
-
-        Animator animator;
-
-        // if the quizLinearLayout should animate out rather than in
-        if (animateOut) {
-            // create circular reveal animation
-            animator = ViewAnimationUtils.createCircularReveal(quizLinearLayout, centerX, centerY, radius, 0);
-            animator.addListener(new AnimatorListenerAdapter() {
-                        // called when the animation finishes
-                        @Override
-                        public void onAnimationEnd(Animator animation) {
-                            loadNextFlag();
-                        }
-                    }
-            );
+        @Override
+        public void onAnimationEnd(Animator animation) {
+            frameDropMonitor.stop();
         }
-        else { // if the quizLinearLayout should animate in
-            animator = ViewAnimationUtils.createCircularReveal(quizLinearLayout, centerX, centerY, 0, radius);
+    };
+
+    // decode flags just large enough for flagImageView - before the first layout pass use the screen size instead
+    private void updateFlagTargetSize() {
+        int width = flagImageView.getWidth();
+        int height = flagImageView.getHeight();
+
+        if (width == 0 || height == 0) {
+            DisplayMetrics metrics = getResources().getDisplayMetrics();
+            width = metrics.widthPixels;
+            height = metrics.heightPixels / 2;
         }
 
-        animator.setDuration(500); // set animation duration to 500 ms
-        animator.start(); // start the animation
+        flagLoader.setTargetSize(width, height);
     }
 
+    // loads the next flag once the answered one is off the screen, starts timing it once it's on the screen
+    private QuizTransitionController.Listener transitionListener = new QuizTransitionController.Listener() {
+        @Override
+        public void onHidden() {
+            loadNextFlag();
+        }
+
+        @Override
+        public void onRevealed() {
+            watchFlag();
+        }
+    };
+
 
 
     // called when a guess Button is touched
     private OnClickListener guessButtonListener = new OnClickListener() {
         @Override
         public void onClick(View v) {
+            long clicked = QuizMetrics.ENABLED ? QuizMetrics.now() : 0;
+            long guessTime = System.nanoTime(); // same clock as the frame time flagVisibleTime
+            if (timedMode && flagVisibleTime == 0)
+                return; // the flag isn't on screen yet - no guessing before the time starts
             Button guessButton = ((Button) v);//The method receives the clicked Button as parameter v
-            String guess = guessButton.getText().toString();
-            String answer = getCountryName(correctAnswer);
-            ++totalGuesses;// increment number of guesses the user has made
+            int guess = engine.getChoice((Integer) guessButton.getTag());//the tag is the Button's position among the answer choices
+            int result = engine.submitGuess(guess);//the engine compares flag ids and counts the guess
+
+            if (result == QuizEngine.GUESS_IGNORED)
+                return; // question was already answered
 
-            if (guess.equals(answer)){ // if the guess is correct
-                ++correctAnswers;
+            if (scoreHistory != null) {
+                int reactionMillis = flagVisibleTime != 0 ? (int) ((guessTime - flagVisibleTime) / 1000000) : -1;
+                scoreHistory.recordGuess(engine.getCorrectAnswerId(), result != QuizEngine.GUESS_INCORRECT, reactionMillis);
+            }
+
+            if (QuizMetrics.ENABLED) {
+                clickTime = clicked;
+                Choreographer.getInstance().removeFrameCallback(feedbackFrameCallback); // a second click before the next frame restarts the measurement
+                Choreographer.getInstance().postFrameCallback(feedbackFrameCallback);
+            }
 
-                // display correct answer in green text
-                answerTextView.setText(answer + "!");
+            if (result != QuizEngine.GUESS_INCORRECT){ // if the guess is correct
+                // display correct answer in green text - with the points it scored in timed mode
+                if (timedMode)
+                    answerTextView.setText(getString(R.string.correct_answer_points, catalog.displayName(guess), timedScorer.correctAnswer(guessTime)));
+                else
+                    answerTextView.setText(getString(R.string.correct_answer, catalog.displayName(guess)));
                 answerTextView.setTextColor(getResources().getColor(R.color.correct_answer, getContext().getTheme()));
 
                 disableButtons(); // disable all guess Buttons
 
-                // if the user has correctly identified FLAGS_IN_QUIZ flags
-                if (correctAnswers == FLAGS_IN_QUIZ) {
+                // if the user has correctly identified every flag in the quiz
+                if (result == QuizEngine.QUIZ_COMPLETE) {
 
 
 /*
@@ -352,20 +571,13 @@ So, make a regular public Java class (or a public static nested class) that exte
                     quizResults.show(getFragmentManager(), "quiz results");
 */
 
-                DialogFragment newFragment = MyAlertDialogFragment.newInstance("quiz results", totalGuesses);//The first String "quiz results" is just for testing
-                    newFragment.setCancelable(false);
-                    newFragment.show(getFragmentManager(), "quiz results");
+                    showResults();
 
 
 
 
-                } else { // answer is correct but quiz is not over - load the next flag after a 2-second delay
-                    handler.postDelayed(new Runnable() {
-                        @Override
-                        public void run() {
-                            animate(true);// animate the flag off the screen
-                        }
-                    }, 2000);// 2000 milliseconds for 2-second delay
+                } else { // answer is correct but quiz is not over - load the next flag after a short delay
+                    scheduleNextFlag();
 
                 }
             } else {// answer was incorrect
@@ -383,13 +595,29 @@ So, make a regular public Java class (or a public static nested class) that exte
 
 
 
+    // displays the quiz stats and offers a new quiz
+    private void showResults() {
+        engine.snapshot(score);
+        if (scoreHistory != null) {
+            if (timedMode)
+                scoreHistory.recordTimedQuiz(score.flagsInQuiz, timedScorer.getPoints());
+            scoreHistory.recordQuiz(score.correctAnswers, score.totalGuesses);//also writes the quiz's guesses to the history file (in the background) - timed out questions don't count
+        }
+        DialogFragment newFragment = MyAlertDialogFragment.newInstance("quiz results", score.totalGuesses, score.percentCorrect(),
+                scoreHistory != null ? scoreHistory.getStats() : null, timedMode ? timedScorer : null);//The first String "quiz results" is just for testing
+        newFragment.setCancelable(false);
+        newFragment.show(getFragmentManager(), "quiz results");
+    }
+
+    // moves on to the next flag after the pause set in the preferences - right away, without animations, if it's 0
+    private void scheduleNextFlag() {
+        transitions.next(nextQuestionDelay);
+    }
+
     // utility method that disables all answer Buttons
     private void disableButtons(){
-        for (int row = 0; row < guessRows; row++){
-            LinearLayout guessRow = guessLinearLayouts[row];
-            for (int i = 0; i < guessRow.getChildCount(); i++)
-                guessRow.getChildAt(i).setEnabled(false);
-        }
+        for (int i = 0; i < guessGridLayout.getButtonCount(); i++)
+            guessGridLayout.getButton(i).setEnabled(false);
     }
 
 
@@ -14,11 +14,23 @@ import android.support.v7.app.AlertDialog;
 public class MyAlertDialogFragment extends DialogFragment {
 
     //Constructor for this class
-    public static MyAlertDialogFragment newInstance(String title, int totalGuesses){
+    public static MyAlertDialogFragment newInstance(String title, int totalGuesses, double percentCorrect, ScoreStats history, TimedScorer timed){
         MyAlertDialogFragment fragment = new MyAlertDialogFragment();
         Bundle args = new Bundle();
         args.putString("quiz results", title);//Save "title" argument in "quiz results" so we can retrieve it below and then use it.
         args.putInt("totalGuesses", totalGuesses);//Save "totalGuesses" argument in "totalGuesses" so we can retrieve it below and then use it.
+        args.putDouble("percentCorrect", percentCorrect);//Computed by QuizEngine.Score, so quizzes of any length are scored correctly
+        if (history != null) {//Totals over every quiz played so far - kept up to date by ScoreHistoryStore, nothing is recounted here
+            args.putInt("quizCount", history.getQuizCount());
+            args.putDouble("averagePercent", history.getAveragePercent());
+            args.putInt("bestStreak", history.getBestStreak());
+            args.putInt("bestTimedPoints", history.getBestTimedPoints());
+        }
+        if (timed != null) {//Timed mode: the quiz's points and how fast its correct answers were - the median and 90th percentile are all the dialog needs of the distribution
+            args.putInt("points", timed.getPoints());
+            args.putLong("medianMillis", timed.getReactionTimes().percentileMillis(50));
+            args.putLong("p90Millis", timed.getReactionTimes().percentileMillis(90));
+        }
         fragment.setArguments(args);
         return fragment;
     }
@@ -31,10 +43,23 @@ public class MyAlertDialogFragment extends DialogFragment {
     public Dialog onCreateDialog(Bundle savedInstanceState) {
         String title = getArguments().getString("quiz results");
         int totalGuesses = getArguments().getInt("totalGuesses");//get the variable from Arguments and store in this variable so we can use it here.
+        double percentCorrect = getArguments().getDouble("percentCorrect");
+
+        String message = getString(R.string.results, totalGuesses, percentCorrect);
+        if (getArguments().containsKey("points") && getArguments().getLong("medianMillis") < 0)//no correct answer in time
+            message += "\n" + getString(R.string.results_timed_points, getArguments().getInt("points"));
+        else if (getArguments().containsKey("points"))
+            message += "\n" + getString(R.string.results_timed, getArguments().getInt("points"),
+                    getArguments().getLong("medianMillis"), getArguments().getLong("p90Millis"));
+        if (getArguments().containsKey("quizCount"))
+            message += "\n" + getString(R.string.results_history, getArguments().getInt("quizCount"),
+                    getArguments().getDouble("averagePercent"), getArguments().getInt("bestStreak"));
+        if (getArguments().containsKey("points") && getArguments().containsKey("quizCount"))
+            message += "\n" + getString(R.string.results_timed_history, getArguments().getInt("bestTimedPoints"));
 
         return new AlertDialog.Builder(getActivity())
                 .setTitle(title)
-                .setMessage(getString(R.string.results, totalGuesses, (1000 / (double) totalGuesses)))
+                .setMessage(message)
                 .setPositiveButton(R.string.reset_quiz, new DialogInterface.OnClickListener() {
                             public void onClick(DialogInterface dialog, int whichButton) {
                                 //((MainActivityFragment)getParentFragment()).resetQuiz();//Not working
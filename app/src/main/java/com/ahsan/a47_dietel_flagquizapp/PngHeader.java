@@ -0,0 +1,73 @@
+// PngHeader.java
+// Reads the size of a PNG and whether it has transparency from its first chunks - nothing is decoded
+package com.ahsan.a47_dietel_flagquizapp;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+// Replaces the inJustDecodeBounds pass before every flag decode, which had to open and parse the file, too
+final class PngHeader {
+
+    static final long SIGNATURE = 0x89504E470D0A1A0AL; // first 8 bytes of every PNG
+    static final int IHDR = 0x49484452; // chunk types
+    static final int TRNS = 0x74524E53; // transparency of images without an alpha channel
+    static final int IDAT = 0x49444154;
+    static final int IEND = 0x49454E44;
+
+    private static final int COLOR_TYPE_ALPHA = 4; // bit of the IHDR color type set for gray + alpha (4) and RGBA (6)
+
+    int width;
+    int height;
+    boolean opaque; // no alpha channel and no tRNS chunk - every pixel is fully opaque, RGB_565 loses nothing but color depth
+
+    // reads the header of the PNG in stream, leaving the stream somewhere inside the image.
+    // Returns false, with the fields undefined, if stream doesn't hold a well formed PNG.
+    boolean read(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        try {
+            if (in.readLong() != SIGNATURE)
+                return false;
+
+            // IHDR always comes first: width, height, bit depth, color type, ...
+            int length = in.readInt();
+            if (in.readInt() != IHDR || length < 13)
+                return false;
+            width = in.readInt();
+            height = in.readInt();
+            in.readUnsignedByte(); // bit depth
+            boolean alpha = (in.readUnsignedByte() & COLOR_TYPE_ALPHA) != 0;
+            skip(in, length - 10 + 4); // rest of IHDR and its CRC
+            if (width <= 0 || height <= 0)
+                return false;
+
+            // without an alpha channel the image can still be transparent through a tRNS chunk, which must come before the pixels
+            while (!alpha) {
+                length = in.readInt();
+                int type = in.readInt();
+                if (type == TRNS)
+                    alpha = true;
+                else if (type == IDAT || type == IEND || length < 0)
+                    break;
+                else
+                    skip(in, length + 4L); // chunk data and CRC
+            }
+            opaque = !alpha;
+            return true;
+        } catch (EOFException exception) {
+            return false; // cut off before the pixels
+        }
+    }
+
+    private static void skip(DataInputStream in, long count) throws IOException {
+        while (count > 0) {
+            long skipped = in.skip(count);
+            if (skipped <= 0) {
+                in.readByte(); // skip gives no way to tell the end of the stream apart - this throws EOFException there
+                skipped = 1;
+            }
+            count -= skipped;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+// QuestionSampler.java
+// Picks distinct random flag ids for a quiz without retries or boxing
+package com.ahsan.a47_dietel_flagquizapp;
+
+import java.util.Random;
+
+public class QuestionSampler {
+
+    private final Random random; // pass a Random with a fixed seed to get the same quiz every time (e.g. in tests)
+
+    public QuestionSampler(Random random) {
+        this.random = random;
+    }
+
+    public QuestionSampler(long seed) {
+        this(new Random(seed));
+    }
+
+    // moves k randomly chosen ids of pool[0..n) to the front of pool and returns how many were chosen.
+    // This is a partial Fisher-Yates shuffle: every step swaps a random not-yet-chosen id into place,
+    // so it takes exactly min(k, n) random numbers and never has to check for duplicates.
+    // If the pool holds fewer than k ids, all n of them are chosen (in random order).
+    public int sample(int[] pool, int n, int k) {
+        int count = Math.min(k, n);
+
+        for (int i = 0; i < count; i++)
+            next(pool, n, i);
+
+        return count;
+    }
+
+    // one step of sample: moves a random id of pool[i..n) to position i and returns it. Calling it for i = 0, 1, 2, ...
+    // chooses distinct ids one at a time, so a quiz doesn't have to choose all its flags up front.
+    public int next(int[] pool, int n, int i) {
+        int j = i + random.nextInt(n - i); // random position among the ids not chosen yet
+        int id = pool[j];
+        pool[j] = pool[i];
+        pool[i] = id;
+        return id;
+    }
+
+    // same as sample, but copies the chosen ids into out (which must hold at least k ids)
+    public int sample(int[] pool, int n, int k, int[] out) {
+        int count = sample(pool, n, k);
+        System.arraycopy(pool, 0, out, 0, count);
+        return count;
+    }
+}
@@ -0,0 +1,469 @@
+// QuizEngine.java
+// Quiz state and rules (question selection, answer checking, scoring) without any Android code
+package com.ahsan.a47_dietel_flagquizapp;
+
+import java.util.Random;
+
+public class QuizEngine {
+
+    // results of submitGuess
+    public static final int GUESS_IGNORED = -1; // no question is open (already answered or quiz over)
+    public static final int GUESS_INCORRECT = 0;
+    public static final int GUESS_CORRECT = 1; // correct, and more questions follow
+    public static final int QUIZ_COMPLETE = 2; // correct answer to (or time out of) the last question
+    public static final int QUESTION_TIMED_OUT = 3; // result of timeOut when more questions follow
+
+    public static final int MAX_CHOICES = 16; // most guess Buttons a question can have - at most 32, see wrongGuesses
+    public static final int ALL_FLAGS = Integer.MAX_VALUE; // reset length of a marathon: every enabled flag once
+    public static final int MAX_LOOKAHEAD = 8; // farthest getUpcomingFlag can look
+
+    // copy of the score, filled by snapshot so callers can reuse one instance instead of allocating
+    public static class Score {
+        public int questionNumber; // 1-based number of the current question
+        public int flagsInQuiz;
+        public int correctAnswers;
+        public int totalGuesses;
+
+        // percentage of guesses that were correct
+        public double percentCorrect() {
+            return totalGuesses == 0 ? 0 : 100.0 * correctAnswers / totalGuesses;
+        }
+    }
+
+    private final FlagCatalog catalog;
+    private final Random random;
+    private final Random orderRandom = new Random(); // draws the quiz flags - reseeded from random by every reset, so their order doesn't depend on how far ahead getUpcomingFlag looked
+    private long orderSeed; // seed of orderRandom for the current quiz
+    private boolean poolInCatalogOrder; // enabledFlags is as resetRegions left it - nothing was drawn from it since
+    private boolean replayable; // the current quiz started from a pool in catalog order, so orderSeed alone reproduces its flags
+    private AdaptiveQuestionPicker quizPicker; // adaptivePicker when the current quiz started
+    private final QuestionSampler sampler; // picks the quiz flags
+    private final DistractorPicker distractorPicker; // picks the wrong answers of every question
+    private AdaptiveQuestionPicker adaptivePicker; // picks the quiz flags by weight instead of the sampler, null for uniform picks
+
+    private final int[] enabledFlags; // ids of the flags in the enabled regions, in no particular order (the sampler shuffles them)
+    private int enabledCount;
+    private int regionMask; // regions whose flags are in enabledFlags
+    // the quiz flags are drawn one at a time, just before they're needed: nothing is chosen or allocated up front,
+    // so a marathon over every flag costs no more per question than a quiz of 10
+    private int quizLength; // as passed to reset
+    private int flagsInQuiz;
+    private int questionIndex = -1; // 0-based number of the current question, -1 before the first
+    private int drawnCount; // flags drawn for this quiz so far - the sampler keeps them in enabledFlags[0..drawnCount)
+    private final int[] upcoming = new int[MAX_LOOKAHEAD]; // ring of flags drawn ahead for getUpcomingFlag, next question first
+    private int upcomingHead;
+    private int upcomingCount;
+    private int choiceCount = 4; // number of guess Buttons per question
+    private final int[] choices = new int[MAX_CHOICES]; // ids shown on the guess Buttons of the current question
+    private int usedChoices; // choices of the current question actually filled - less than choiceCount if too few flags are enabled
+    private int wrongGuesses; // bit i set if choice i of the current question was guessed wrong
+    private int correctAnswerId = -1; // id of the current question's flag
+    private boolean questionOpen; // false once the current question was answered correctly
+    private boolean timedOut; // the current question was closed by timeOut, not by a correct answer
+    private int totalGuesses; // number of guesses made
+    private int correctAnswers; // number of correct guesses
+
+    public QuizEngine(FlagCatalog catalog, Random random) {
+        this.catalog = catalog;
+        this.random = random;
+        this.sampler = new QuestionSampler(orderRandom);
+        this.enabledFlags = new int[catalog.size()];
+        this.distractorPicker = new DistractorPicker(random, new DistractorPicker.AnyFlag(enabledFlags, 0));
+    }
+
+    public FlagCatalog getCatalog() {
+        return catalog;
+    }
+
+
+
+
+
+    // selects the flags of the regions in regionMask (see FlagCatalog.regionMask) and draws wrong answers from all of them - takes effect with the next reset.
+    // Only the regions switched on or off are touched: the flags of the ones switched off are dropped in one pass, those of the ones
+    // switched on appended - nothing happens if regionMask didn't change.
+    public void setRegions(int regionMask) {
+        int removed = this.regionMask & ~regionMask;
+        int added = regionMask & ~this.regionMask;
+        if (removed == 0 && added == 0)
+            return;
+        this.regionMask = regionMask;
+        poolInCatalogOrder = false;
+
+        if (removed != 0) {
+            int kept = 0;
+            for (int i = 0; i < enabledCount; i++) {
+                int id = enabledFlags[i];
+                if ((removed & (1 << catalog.regionOf(id))) == 0)
+                    enabledFlags[kept++] = id;
+                else if (adaptivePicker != null)
+                    adaptivePicker.setEnabled(id, false);
+            }
+            enabledCount = kept;
+        }
+
+        for (int region = 0; region < catalog.regionCount(); region++) {
+            if ((added & (1 << region)) == 0)
+                continue;
+
+            for (int id = catalog.regionStart(region); id < catalog.regionEnd(region); id++) {
+                enabledFlags[enabledCount++] = id;
+                if (adaptivePicker != null)
+                    adaptivePicker.setEnabled(id, true);
+            }
+        }
+
+        distractorPicker.setStrategy(new DistractorPicker.AnyFlag(enabledFlags, enabledCount));
+        enabledFlagsChanged();
+    }
+
+    // same as setRegions, but rebuilds the enabled flags in catalog order, so the next quiz depends only on the state
+    // of the Random (e.g. the daily challenge, where every device must draw the same flags from the same seed)
+    public void resetRegions(int regionMask) {
+        this.regionMask = regionMask;
+        enabledCount = catalog.selectFlags(regionMask, enabledFlags);
+        poolInCatalogOrder = true;
+        distractorPicker.setStrategy(new DistractorPicker.AnyFlag(enabledFlags, enabledCount));
+        if (adaptivePicker != null)
+            adaptivePicker.setEnabled(enabledFlags, enabledCount);
+        enabledFlagsChanged();
+    }
+
+    // switches to weighted quiz flags (the picker learns from every guess) or, with null, back to uniform ones -
+    // takes effect with the next reset
+    public void setAdaptivePicker(AdaptiveQuestionPicker picker) {
+        adaptivePicker = picker;
+        if (picker != null)
+            picker.setEnabled(enabledFlags, enabledCount);
+        enabledFlagsChanged();
+    }
+
+    public AdaptiveQuestionPicker getAdaptivePicker() {
+        return adaptivePicker;
+    }
+
+    // sets how many guess Buttons (2 to MAX_CHOICES) the following questions have - see also refreshChoices
+    public void setChoiceCount(int choiceCount) {
+        this.choiceCount = Math.max(2, Math.min(MAX_CHOICES, choiceCount));
+    }
+
+    public void setDistractorStrategy(DistractorPicker.Strategy strategy) {
+        distractorPicker.setStrategy(strategy);
+    }
+
+    // starts a new quiz of up to length flags (fewer if the enabled regions don't have that many, ALL_FLAGS for all of them)
+    // and resets the score - call nextQuestion next. O(1) whatever the length, the flags are drawn as the quiz goes on.
+    public void reset(int length) {
+        quizLength = length;
+        flagsInQuiz = Math.min(length, enabledCount);
+        orderSeed = random.nextLong();
+        orderRandom.setSeed(orderSeed);
+        replayable = poolInCatalogOrder && adaptivePicker == null; // adaptive draws depend on the guesses, too
+        quizPicker = adaptivePicker;
+        if (adaptivePicker != null)
+            adaptivePicker.startQuiz(System.currentTimeMillis());
+        drawnCount = 0;
+        upcomingHead = 0;
+        upcomingCount = 0;
+
+        questionIndex = -1;
+        correctAnswerId = -1;
+        questionOpen = false;
+        timedOut = false;
+        correctAnswers = 0;
+        totalGuesses = 0;
+    }
+
+    // draws the next quiz flag into the upcoming ring
+    private void draw() {
+        int flagId = adaptivePicker != null
+                ? adaptivePicker.next(orderRandom)
+                : sampler.next(enabledFlags, enabledCount, drawnCount);
+        ++drawnCount;
+        poolInCatalogOrder = false;
+        upcoming[(upcomingHead + upcomingCount++) % MAX_LOOKAHEAD] = flagId;
+    }
+
+    // the enabled flags or the way they're drawn changed: a quiz that started drawing ends with the flags drawn so far
+    // (the sampler's state refers to the old ones), one that didn't draws from the new ones
+    private void enabledFlagsChanged() {
+        flagsInQuiz = drawnCount > 0 ? Math.min(flagsInQuiz, drawnCount) : Math.min(quizLength, enabledCount);
+    }
+
+    public boolean hasNextQuestion() {
+        return questionIndex + 1 < flagsInQuiz;
+    }
+
+    // moves to the next question, picks its answer choices and returns the id of the flag to display
+    public int nextQuestion() {
+        if (upcomingCount == 0)
+            draw();
+        correctAnswerId = upcoming[upcomingHead];
+        upcomingHead = (upcomingHead + 1) % MAX_LOOKAHEAD;
+        --upcomingCount;
+        ++questionIndex;
+        questionOpen = true;
+        timedOut = false;
+        if (adaptivePicker != null)
+            adaptivePicker.onAsked(correctAnswerId, System.currentTimeMillis());
+
+        pickChoices();
+        return correctAnswerId;
+    }
+
+    // picks the current question's answer choices again, e.g. with the count of the last setChoiceCount -
+    // the question, its guesses and the score stay as they are
+    public void refreshChoices() {
+        if (correctAnswerId >= 0)
+            pickChoices();
+    }
+
+    // pick the wrong answers, then put the correct answer at a random position among them
+    private void pickChoices() {
+        wrongGuesses = 0;
+        int wrongAnswers = distractorPicker.pick(correctAnswerId, choiceCount - 1, choices);
+        int correctPosition = random.nextInt(wrongAnswers + 1);
+        choices[wrongAnswers] = choices[correctPosition];
+        choices[correctPosition] = correctAnswerId;
+        usedChoices = wrongAnswers + 1;
+    }
+
+    // checks a guess for the current question and updates the score - returns one of the GUESS_/QUIZ_ constants
+    public int submitGuess(int flagId) {
+        if (!questionOpen)
+            return GUESS_IGNORED;
+
+        ++totalGuesses;
+        if (adaptivePicker != null)
+            adaptivePicker.onGuess(correctAnswerId, flagId == correctAnswerId);
+        if (flagId != correctAnswerId) {
+            for (int i = 0; i < usedChoices; i++)
+                if (choices[i] == flagId)
+                    wrongGuesses |= 1 << i;
+            return GUESS_INCORRECT;
+        }
+
+        ++correctAnswers;
+        questionOpen = false;
+        return hasNextQuestion() ? GUESS_CORRECT : QUIZ_COMPLETE;
+    }
+
+    // closes the current question unanswered, e.g. when the time of a timed quiz ran out - no guess is counted.
+    // Returns QUESTION_TIMED_OUT, QUIZ_COMPLETE if it was the last question, or GUESS_IGNORED if no question is open.
+    public int timeOut() {
+        if (!questionOpen)
+            return GUESS_IGNORED;
+
+        questionOpen = false;
+        timedOut = true;
+        return hasNextQuestion() ? QUESTION_TIMED_OUT : QUIZ_COMPLETE;
+    }
+
+
+
+
+
+    // number of guess Buttons per question, as last set by setChoiceCount (kept between 2 and MAX_CHOICES) - the
+    // size of the Button grid, even before the first question
+    public int getConfiguredChoiceCount() {
+        return choiceCount;
+    }
+
+    // number of answer choices of the current question - fewer than getConfiguredChoiceCount if too few flags are
+    // enabled, 0 before the first question
+    public int getUsedChoiceCount() {
+        return usedChoices;
+    }
+
+    // id of the flag shown on guess Button number index of the current question
+    public int getChoice(int index) {
+        return choices[index];
+    }
+
+    // true if choice index of the current question was already guessed (wrong)
+    public boolean isChoiceGuessed(int index) {
+        return (wrongGuesses & (1 << index)) != 0;
+    }
+
+    public int getCorrectAnswerId() {
+        return correctAnswerId;
+    }
+
+    // true until the current question is answered correctly
+    public boolean isQuestionOpen() {
+        return questionOpen;
+    }
+
+    // true if the current question was closed by timeOut rather than answered
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    // id of the flag shown ahead (1 to MAX_LOOKAHEAD) questions after the current one, or -1 if the quiz ends before that -
+    // draws the flags up to that question if they aren't yet
+    public int getUpcomingFlag(int ahead) {
+        if (ahead < 1 || ahead > MAX_LOOKAHEAD)
+            throw new IllegalArgumentException("ahead must be 1 to " + MAX_LOOKAHEAD + ": " + ahead);
+        if (questionIndex + ahead >= flagsInQuiz)
+            return -1;
+
+        while (upcomingCount < ahead)
+            draw();
+        return upcoming[(upcomingHead + ahead - 1) % MAX_LOOKAHEAD];
+    }
+
+    public int getFlagsInQuiz() {
+        return flagsInQuiz;
+    }
+
+    public int getTotalGuesses() {
+        return totalGuesses;
+    }
+
+    public int getCorrectAnswers() {
+        return correctAnswers;
+    }
+
+    // copies the score into score - nothing is allocated
+    public void snapshot(Score score) {
+        score.questionNumber = questionIndex + 1;
+        score.flagsInQuiz = flagsInQuiz;
+        score.correctAnswers = correctAnswers;
+        score.totalGuesses = totalGuesses;
+    }
+
+
+
+
+
+    // the quiz in progress as a few ints, e.g. for onSaveInstanceState: the counters, the current question's choices and
+    // one bit per catalog flag for the flags asked so far (8 ints for the 234 flags of the app). null before the first question.
+    public int[] saveState() {
+        if (questionIndex < 0 || quizPicker != adaptivePicker)
+            return null; // no quiz, or its flags were drawn by a picker that's gone
+
+        int[] state = new int[STATE_ASKED + (catalog.size() + 31) / 32];
+        state[STATE_VERSION] = STATE_FORMAT;
+        state[STATE_CATALOG_SIZE] = catalog.size();
+        state[STATE_FLAGS] = (questionOpen ? 1 : 0) | (replayable ? 2 : 0) | (timedOut ? 4 : 0);
+        state[STATE_QUIZ_LENGTH] = quizLength;
+        state[STATE_FLAGS_IN_QUIZ] = flagsInQuiz;
+        state[STATE_QUESTION_INDEX] = questionIndex;
+        state[STATE_CORRECT_ANSWER] = correctAnswerId;
+        state[STATE_TOTAL_GUESSES] = totalGuesses;
+        state[STATE_CORRECT_ANSWERS] = correctAnswers;
+        state[STATE_USED_CHOICES] = usedChoices;
+        state[STATE_WRONG_GUESSES] = wrongGuesses;
+        state[STATE_ORDER_SEED] = (int) (orderSeed >>> 32);
+        state[STATE_ORDER_SEED + 1] = (int) orderSeed;
+        System.arraycopy(choices, 0, state, STATE_CHOICES, usedChoices);
+
+        // flags only drawn ahead aren't saved, they're drawn again after a restore
+        for (int i = 0; i <= questionIndex; i++) {
+            int id = askedFlag(i);
+            state[STATE_ASKED + id / 32] |= 1 << (id % 32);
+        }
+        return state;
+    }
+
+    // continues the quiz saved by saveState - call it instead of reset, after the same setRegions (or resetRegions),
+    // setChoiceCount and setAdaptivePicker calls as before the save. Returns false, changing nothing, if the state doesn't
+    // fit this engine (other catalog, flags no longer enabled, ...) - start a new quiz with reset then.
+    // O(enabled flags), nothing is decoded or listed: the current question comes back with the same choices and guesses.
+    public boolean restoreState(int[] state) {
+        if (state == null || state.length != STATE_ASKED + (catalog.size() + 31) / 32
+                || state[STATE_VERSION] != STATE_FORMAT || state[STATE_CATALOG_SIZE] != catalog.size())
+            return false;
+
+        int asked = state[STATE_QUESTION_INDEX] + 1;
+        int used = state[STATE_USED_CHOICES];
+        int answer = state[STATE_CORRECT_ANSWER];
+        if (asked < 1 || asked > state[STATE_FLAGS_IN_QUIZ] || state[STATE_FLAGS_IN_QUIZ] > enabledCount
+                || used < 1 || used > MAX_CHOICES || answer < 0 || answer >= catalog.size() || !isAsked(state, answer))
+            return false;
+        for (int i = 0; i < used; i++)
+            if (state[STATE_CHOICES + i] < 0 || state[STATE_CHOICES + i] >= catalog.size())
+                return false;
+
+        // every asked flag must still be enabled
+        int enabledAsked = 0;
+        for (int i = 0; i < enabledCount; i++)
+            if (isAsked(state, enabledFlags[i]))
+                ++enabledAsked;
+        if (enabledAsked != asked)
+            return false;
+
+        long seed = ((long) state[STATE_ORDER_SEED] << 32) | (state[STATE_ORDER_SEED + 1] & 0xFFFFFFFFL);
+        boolean replay = (state[STATE_FLAGS] & 2) != 0 && poolInCatalogOrder && adaptivePicker == null;
+
+        quizLength = state[STATE_QUIZ_LENGTH];
+        flagsInQuiz = state[STATE_FLAGS_IN_QUIZ];
+        questionIndex = asked - 1;
+        correctAnswerId = answer;
+        questionOpen = (state[STATE_FLAGS] & 1) != 0;
+        timedOut = !questionOpen && (state[STATE_FLAGS] & 4) != 0;
+        totalGuesses = state[STATE_TOTAL_GUESSES];
+        correctAnswers = state[STATE_CORRECT_ANSWERS];
+        usedChoices = used;
+        wrongGuesses = state[STATE_WRONG_GUESSES];
+        System.arraycopy(state, STATE_CHOICES, choices, 0, used);
+        upcomingHead = 0;
+        upcomingCount = 0;
+        orderSeed = seed;
+        replayable = replay;
+        quizPicker = adaptivePicker;
+
+        if (replay) {
+            // the quiz started from the pool in catalog order (e.g. the daily challenge): drawing the asked flags again from
+            // the same seed restores the sampler exactly, so the rest of the quiz is the same as without the save
+            orderRandom.setSeed(seed);
+            for (drawnCount = 0; drawnCount < asked; drawnCount++)
+                sampler.next(enabledFlags, enabledCount, drawnCount);
+        } else {
+            // move the asked flags to the front of the pool, where the sampler keeps the flags it drew
+            drawnCount = 0;
+            for (int i = 0; i < enabledCount; i++) {
+                int id = enabledFlags[i];
+                if (isAsked(state, id)) {
+                    enabledFlags[i] = enabledFlags[drawnCount];
+                    enabledFlags[drawnCount++] = id;
+                }
+            }
+            orderRandom.setSeed(random.nextLong());
+            if (adaptivePicker != null) {
+                adaptivePicker.startQuiz(System.currentTimeMillis());
+                for (int i = 0; i < drawnCount; i++)
+                    adaptivePicker.markDrawn(enabledFlags[i]);
+            }
+        }
+        poolInCatalogOrder = false;
+        return true;
+    }
+
+    // id of the flag asked as question index (0-based) - only valid for questions up to the current one.
+    // Both ways of drawing keep their draws in order: the sampler at the front of enabledFlags, the adaptive picker in its own list.
+    private int askedFlag(int index) {
+        return quizPicker != null ? quizPicker.drawnFlag(index) : enabledFlags[index];
+    }
+
+    private static boolean isAsked(int[] state, int id) {
+        return (state[STATE_ASKED + id / 32] & (1 << (id % 32))) != 0;
+    }
+
+    // layout of the saveState array
+    private static final int STATE_FORMAT = 2; // bump when the layout changes - older states are then rejected (2: MAX_CHOICES 8 to 16)
+    private static final int STATE_VERSION = 0;
+    private static final int STATE_CATALOG_SIZE = 1;
+    private static final int STATE_FLAGS = 2; // bit 0: question open, bit 1: replayable, bit 2: timed out (0 in older states - same layout)
+    private static final int STATE_QUIZ_LENGTH = 3;
+    private static final int STATE_FLAGS_IN_QUIZ = 4;
+    private static final int STATE_QUESTION_INDEX = 5;
+    private static final int STATE_CORRECT_ANSWER = 6;
+    private static final int STATE_TOTAL_GUESSES = 7;
+    private static final int STATE_CORRECT_ANSWERS = 8;
+    private static final int STATE_USED_CHOICES = 9;
+    private static final int STATE_WRONG_GUESSES = 10;
+    private static final int STATE_ORDER_SEED = 11; // two ints, high half first
+    private static final int STATE_CHOICES = 13; // MAX_CHOICES ints
+    private static final int STATE_ASKED = STATE_CHOICES + MAX_CHOICES; // bit set over the catalog's flag ids
+}
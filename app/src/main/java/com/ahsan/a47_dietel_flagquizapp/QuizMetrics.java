@@ -0,0 +1,91 @@
+// QuizMetrics.java
+// Process-wide timings and counters of the quiz hot paths, dumped to logcat and a file in a stable text format
+package com.ahsan.a47_dietel_flagquizapp;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.concurrent.atomic.AtomicLong;
+
+import android.util.Log;
+
+public final class QuizMetrics {
+
+    private static final String TAG = "FlagQuiz Metrics";
+
+    // compile-time constant (see buildConfigField in app/build.gradle): with it false, javac drops every
+    // "if (QuizMetrics.ENABLED)" block, so release builds contain no timing code at all
+    public static final boolean ENABLED = BuildConfig.QUIZ_METRICS;
+
+    public static final String FILE_NAME = "quiz_metrics.txt"; // written to the app's files directory
+    static final int FORMAT_VERSION = 3; // first line of every dump - bump when lines change meaning (2 added startup_load and the target line, 3 the decoded bytes)
+
+    // cold start budget: 90% of launches should show their first flag within this time (microseconds, like the dump)
+    public static final long TIME_TO_FIRST_FLAG_TARGET_US = 400000;
+
+    // durations, all in nanoseconds
+    public static final LatencyHistogram STARTUP_LOAD = new LatencyHistogram("startup_load"); // StartupLoader started until preferences and repository reach the main thread
+    public static final LatencyHistogram CATALOG_LOAD = new LatencyHistogram("catalog_load"); // flag catalog read and localized
+    public static final LatencyHistogram DECODE = new LatencyHistogram("decode"); // one flag decoded on a background thread
+    public static final LatencyHistogram RESET_QUIZ = new LatencyHistogram("reset_quiz"); // MainActivityFragment.resetQuiz
+    public static final LatencyHistogram TIME_TO_FIRST_FLAG = new LatencyHistogram("time_to_first_flag"); // quiz view created until its first flag is on screen
+    public static final LatencyHistogram CLICK_TO_FEEDBACK = new LatencyHistogram("click_to_feedback"); // guess Button click until the frame showing the result
+    public static final LatencyHistogram ANIMATION_FRAME = new LatencyHistogram("animation_frame"); // interval between frames while the quiz animates
+
+    private static final LatencyHistogram[] HISTOGRAMS =
+            {STARTUP_LOAD, CATALOG_LOAD, DECODE, RESET_QUIZ, TIME_TO_FIRST_FLAG, CLICK_TO_FEEDBACK, ANIMATION_FRAME};
+
+    // events
+    public static final AtomicLong ANIMATION_FRAMES = new AtomicLong(); // frames drawn while the quiz animates
+    public static final AtomicLong DROPPED_FRAMES = new AtomicLong(); // vsyncs missed while the quiz animates
+    public static final AtomicLong DECODED_HEAP_BYTES = new AtomicLong(); // pixel bytes of every decoded flag on the heap - 0 for hardware bitmaps
+    public static final AtomicLong DECODED_BYTES_SAVED = new AtomicLong(); // less than decoding every flag full size in ARGB_8888
+
+    private QuizMetrics() {
+    }
+
+    // current time for measuring a duration with the histograms above
+    public static long now() {
+        return System.nanoTime();
+    }
+
+
+
+
+
+    // all metrics in a stable, line based format meant for scripts: a header line, one line per histogram
+    // (see LatencyHistogram.dump), a "target time_to_first_flag p90_us=<n> target_us=<n> met=<true|false>" line,
+    // then one "counter <name> value=<n>" line per counter
+    public static String dump() {
+        StringBuilder out = new StringBuilder(128 * (HISTOGRAMS.length + 4));
+        out.append("flagquiz-metrics version=").append(FORMAT_VERSION).append('\n');
+        for (LatencyHistogram histogram : HISTOGRAMS)
+            histogram.dump(out);
+        long firstFlagP90 = TIME_TO_FIRST_FLAG.valueAtPercentile(90) / 1000;
+        out.append("target time_to_first_flag p90_us=").append(firstFlagP90)
+                .append(" target_us=").append(TIME_TO_FIRST_FLAG_TARGET_US)
+                .append(" met=").append(firstFlagP90 <= TIME_TO_FIRST_FLAG_TARGET_US).append('\n');
+        out.append("counter animation_frames value=").append(ANIMATION_FRAMES.get()).append('\n');
+        out.append("counter dropped_frames value=").append(DROPPED_FRAMES.get()).append('\n');
+        out.append("counter decoded_heap_bytes value=").append(DECODED_HEAP_BYTES.get()).append('\n');
+        out.append("counter decoded_bytes_saved value=").append(DECODED_BYTES_SAVED.get()).append('\n');
+        return out.toString();
+    }
+
+    // prints the dump to logcat, one line per metric so nothing gets truncated
+    public static void log() {
+        for (String line : dump().split("\n"))
+            Log.i(TAG, line);
+    }
+
+    // replaces file with the current dump
+    public static void writeTo(File file) {
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(file), "UTF-8")) {
+            out.write(dump());
+        } catch (IOException exception) {
+            Log.e(TAG, "Error writing " + file, exception);
+        }
+    }
+}
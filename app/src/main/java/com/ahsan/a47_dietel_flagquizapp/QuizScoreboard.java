@@ -0,0 +1,96 @@
+// QuizScoreboard.java
+// Scores of every session of a tournament, updated by many threads at once without locks
+package com.ahsan.a47_dietel_flagquizapp;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Every session owns one slot and is the only writer of it, so guesses never contend with each other: a guess is one
+// atomic add to its own slot. Totals and standings are summed from the slots when they're read, which is rare.
+public class QuizScoreboard {
+
+    // the slots are STRIDE longs apart - 64 bytes, one cache line - so sessions played on different cores don't
+    // keep invalidating each other's line (false sharing)
+    private static final int STRIDE = 8;
+    private static final int GUESSES = 0; // correct answers in the high 32 bits, guesses in the low 32 - one add updates both consistently
+    private static final int QUIZZES = 1; // completed quizzes
+    private static final long CORRECT_GUESS = (1L << 32) + 1;
+
+    private final AtomicLongArray slots;
+    private final int capacity;
+
+    public QuizScoreboard(int capacity) {
+        this.capacity = capacity;
+        slots = new AtomicLongArray(capacity * STRIDE);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    // counts a guess of the session in slot
+    void recordGuess(int slot, boolean correct) {
+        slots.getAndAdd(slot * STRIDE + GUESSES, correct ? CORRECT_GUESS : 1);
+    }
+
+    void recordQuizComplete(int slot) {
+        slots.getAndIncrement(slot * STRIDE + QUIZZES);
+    }
+
+
+
+
+
+    public int getCorrectAnswers(int slot) {
+        return (int) (slots.get(slot * STRIDE + GUESSES) >>> 32);
+    }
+
+    public int getTotalGuesses(int slot) {
+        return (int) slots.get(slot * STRIDE + GUESSES);
+    }
+
+    public int getCompletedQuizzes(int slot) {
+        return (int) slots.get(slot * STRIDE + QUIZZES);
+    }
+
+    // sums of every slot - each slot is read atomically, but guesses made while summing may or may not be counted
+    public long getTotalCorrectAnswers() {
+        long total = 0;
+        for (int slot = 0; slot < capacity; slot++)
+            total += slots.get(slot * STRIDE + GUESSES) >>> 32;
+        return total;
+    }
+
+    public long getTotalGuesses() {
+        long total = 0;
+        for (int slot = 0; slot < capacity; slot++)
+            total += slots.get(slot * STRIDE + GUESSES) & 0xFFFFFFFFL;
+        return total;
+    }
+
+    // fills standings[0..count) with the slots 0..count - 1, best first: most correct answers, then fewest guesses,
+    // then lowest slot. Reads every slot once, so the order is consistent even while sessions are still playing.
+    public void rank(int[] standings, int count) {
+        long[] scores = new long[count];
+        for (int slot = 0; slot < count; slot++)
+            scores[slot] = slots.get(slot * STRIDE + GUESSES);
+
+        // insertion sort - a tournament has at most a few hundred players, and it's stable, which keeps ties in slot order
+        for (int i = 0; i < count; i++) {
+            int slot = i;
+            int j = i;
+            while (j > 0 && isBetter(scores[slot], scores[standings[j - 1]])) {
+                standings[j] = standings[j - 1];
+                --j;
+            }
+            standings[j] = slot;
+        }
+    }
+
+    private static boolean isBetter(long score, long other) {
+        long correct = score >>> 32;
+        long otherCorrect = other >>> 32;
+        if (correct != otherCorrect)
+            return correct > otherCorrect;
+        return (score & 0xFFFFFFFFL) < (other & 0xFFFFFFFFL);
+    }
+}
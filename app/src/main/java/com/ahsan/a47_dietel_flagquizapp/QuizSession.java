@@ -0,0 +1,69 @@
+// QuizSession.java
+// One player's quiz in a tournament - its own QuizEngine over the shared flag catalog, scored on the shared scoreboard
+package com.ahsan.a47_dietel_flagquizapp;
+
+// Not thread safe, like QuizEngine: a session is played by one thread at a time (the UI thread in pass-and-play,
+// one worker in a simulation). Sessions don't share anything mutable but the lock-free QuizScoreboard, so any number
+// of them can be played in parallel.
+public class QuizSession {
+
+    private final int id; // also the session's slot on the scoreboard
+    private final String player;
+    private final XoroshiroRandom random;
+    private final QuizEngine engine;
+    private final QuizScoreboard scoreboard;
+
+    QuizSession(int id, String player, FlagCatalog catalog, long seed, QuizScoreboard scoreboard) {
+        this.id = id;
+        this.player = player;
+        this.random = new XoroshiroRandom(seed);
+        this.engine = new QuizEngine(catalog, random); // the catalog is immutable - every engine only keeps its own flag ids
+        this.scoreboard = scoreboard;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getPlayer() {
+        return player;
+    }
+
+    // the session's quiz, for showing its question and choices - guesses should go through submitGuess, so they're scored
+    public QuizEngine getEngine() {
+        return engine;
+    }
+
+
+
+
+
+    // starts a quiz of length flags from the regions in regionMask, with choices guess Buttons per question -
+    // call nextQuestion next
+    public void start(int regionMask, int choices, int length) {
+        engine.setChoiceCount(choices);
+        engine.setRegions(regionMask);
+        engine.reset(length);
+    }
+
+    public boolean hasNextQuestion() {
+        return engine.hasNextQuestion();
+    }
+
+    // moves to the next question and returns the id of the flag to display
+    public int nextQuestion() {
+        return engine.nextQuestion();
+    }
+
+    // checks the guess and records it on the scoreboard - returns one of the QuizEngine.GUESS_/QUIZ_ constants
+    public int submitGuess(int flagId) {
+        int result = engine.submitGuess(flagId);
+        if (result == QuizEngine.GUESS_IGNORED)
+            return result;
+
+        scoreboard.recordGuess(id, result != QuizEngine.GUESS_INCORRECT);
+        if (result == QuizEngine.QUIZ_COMPLETE)
+            scoreboard.recordQuizComplete(id);
+        return result;
+    }
+}
@@ -0,0 +1,60 @@
+// QuizSessionManager.java
+// Holds the concurrent quiz sessions of a tournament (e.g. pass-and-play on a shared tablet) and their scoreboard
+package com.ahsan.a47_dietel_flagquizapp;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Every session shares the one immutable FlagCatalog (and, on screen, FlagRepository's bitmap cache - flags are cached
+// by id, not by session), so a session costs only its engine's small arrays. Sessions can be started from any thread.
+public class QuizSessionManager {
+
+    private final FlagCatalog catalog;
+    private final long seed; // every session's Random is derived from it and the session's id
+    private final QuizScoreboard scoreboard;
+    private final AtomicReferenceArray<QuizSession> sessions; // by id
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    // a tournament of up to maxSessions players - the same seed deals every player the same quizzes each time
+    public QuizSessionManager(FlagCatalog catalog, int maxSessions, long seed) {
+        this.catalog = catalog;
+        this.seed = seed;
+        scoreboard = new QuizScoreboard(maxSessions);
+        sessions = new AtomicReferenceArray<>(maxSessions);
+    }
+
+    // adds a player to the tournament - throws IllegalStateException if it's full
+    public QuizSession startSession(String player) {
+        int id = nextId.getAndIncrement();
+        if (id >= sessions.length())
+            throw new IllegalStateException("The tournament already has " + sessions.length() + " players");
+
+        QuizSession session = new QuizSession(id, player, catalog, XoroshiroRandom.splitMix64(seed + id), scoreboard);
+        sessions.set(id, session);
+        return session;
+    }
+
+    // the session with the given id, or null if it isn't started (yet)
+    public QuizSession getSession(int id) {
+        return sessions.get(id);
+    }
+
+    public int getSessionCount() {
+        return Math.min(nextId.get(), sessions.length());
+    }
+
+    public FlagCatalog getCatalog() {
+        return catalog;
+    }
+
+    public QuizScoreboard getScoreboard() {
+        return scoreboard;
+    }
+
+    // the session ids of the started sessions, best player first - see QuizScoreboard.rank
+    public int[] getStandings() {
+        int[] standings = new int[getSessionCount()];
+        scoreboard.rank(standings, standings.length);
+        return standings;
+    }
+}
@@ -0,0 +1,156 @@
+// QuizTransitionController.java
+// Moves the quiz from one question to the next: a pause on the answer, the circular hide, the new flag, the circular reveal
+package com.ahsan.a47_dietel_flagquizapp;
+
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
+import android.animation.ValueAnimator;
+import android.graphics.Outline;
+import android.os.Handler;
+import android.view.View;
+import android.view.ViewOutlineProvider;
+
+// One ValueAnimator, one Runnable and one set of listeners serve every question: the animator shrinks or grows a
+// circular outline that the view is clipped to, so nothing is allocated per question. (ViewAnimationUtils'
+// circular reveal would need a new Animator every time - a started RevealAnimator can't be started again.)
+// Every callback checks the state first, and cancel() goes back to IDLE before it stops anything, so a pause or
+// an animation cancelled by a new quiz or a destroyed view never reaches the Listener.
+// Use on the UI thread only.
+public class QuizTransitionController {
+
+    // what the quiz screen is doing between two questions
+    static final int IDLE = 0; // showing a question (or nothing to do)
+    static final int PAUSED = 1; // showing the answer until the pause ends
+    static final int HIDING = 2; // animating the answered flag off the screen
+    static final int HIDDEN = 3; // off the screen, waiting for the next flag
+    static final int REVEALING = 4; // animating the next flag onto the screen
+
+    static final long DURATION = 500; // milliseconds of each animation
+
+    // tells the fragment when to load the next flag and when it's completely visible
+    public interface Listener {
+        void onHidden(); // the answered question is off the screen (or the pause ended without animations)
+        void onRevealed(); // the new flag is completely on the screen
+    }
+
+    private final View view; // the view that's hidden and revealed
+    private final Listener listener;
+    private final Handler handler = new Handler(); // ends the pause on the UI thread - create the controller there
+    private final ValueAnimator animator = ValueAnimator.ofFloat(0, 1); // reused for every hide and reveal
+    private int state = IDLE;
+    private float radius; // of the circle the view is clipped to, in pixels
+
+    // frameListener (may be null) is told about every animation, before the Listener, e.g. to count dropped frames
+    public QuizTransitionController(View view, Listener listener, Animator.AnimatorListener frameListener) {
+        this.view = view;
+        this.listener = listener;
+
+        animator.setDuration(DURATION);
+        animator.addUpdateListener(radiusUpdater);
+        if (frameListener != null)
+            animator.addListener(frameListener); // added first, so it stops before the Listener starts the next animation
+        animator.addListener(animationEndListener);
+        view.setOutlineProvider(circleOutline);
+    }
+
+    // shows the answer for delay milliseconds, then hides the question (animated unless delay is 0) and calls
+    // Listener.onHidden - a transition already under way is dropped
+    public void next(long delay) {
+        cancel();
+        if (delay == 0) {
+            listener.onHidden(); // no pause, no animations
+            return;
+        }
+        state = PAUSED;
+        handler.postDelayed(pauseEnded, delay);
+    }
+
+    // shows the view - animated, or at once if animate is false - and calls Listener.onRevealed once it's completely
+    // visible. Does nothing while the answered question is paused on or hiding: its flag arrived after the answer
+    // (decodes run in the background), and the transition to the next question goes on.
+    public void reveal(boolean animate) {
+        if (state == PAUSED || state == HIDING)
+            return;
+        if (animate) {
+            start(REVEALING);
+        } else {
+            cancel(); // e.g. hidden before the pause was switched off
+            listener.onRevealed();
+        }
+    }
+
+    // drops the pending pause or animation without calling the Listener and shows the view unclipped - call it
+    // when a new quiz starts and when the view goes away
+    public void cancel() {
+        handler.removeCallbacks(pauseEnded);
+        state = IDLE; // before cancelling, so the animation's end isn't taken for a finished transition
+        animator.cancel();
+        view.setClipToOutline(false);
+    }
+
+    int getState() {
+        return state;
+    }
+
+    // the one animator behind every transition - for tests
+    ValueAnimator getAnimator() {
+        return animator;
+    }
+
+    // starts the animator for newState (HIDING or REVEALING), clipping the view to the circle from now on
+    private void start(int newState) {
+        state = IDLE; // an animation still running ends without a callback
+        animator.cancel();
+        state = newState;
+        view.setClipToOutline(true);
+        animator.start(); // the update listener sets the first radius right away
+    }
+
+    // hides the answered question once the pause is over
+    private final Runnable pauseEnded = new Runnable() {
+        @Override
+        public void run() {
+            if (state != PAUSED)
+                return;
+            start(HIDING);
+        }
+    };
+
+    // shrinks or grows the circle with the animation - from the view's center to its farthest corner and beyond
+    private final ValueAnimator.AnimatorUpdateListener radiusUpdater = new ValueAnimator.AnimatorUpdateListener() {
+        @Override
+        public void onAnimationUpdate(ValueAnimator animation) {
+            float fraction = animation.getAnimatedFraction();
+            float fullRadius = Math.max(view.getWidth(), view.getHeight());
+            radius = (state == HIDING ? 1 - fraction : fraction) * fullRadius;
+            view.invalidateOutline();
+        }
+    };
+
+    // moves on to the next state when an animation ends - cancel() already set IDLE, so a cancelled one does nothing
+    private final AnimatorListenerAdapter animationEndListener = new AnimatorListenerAdapter() {
+        @Override
+        public void onAnimationEnd(Animator animation) {
+            if (state == HIDING) {
+                state = HIDDEN; // stays clipped to nothing until the next flag is revealed
+                listener.onHidden();
+            } else if (state == REVEALING) {
+                state = IDLE;
+                view.setClipToOutline(false);
+                listener.onRevealed();
+            }
+        }
+    };
+
+    // a circle around the view's center: a round rect whose corner radius is half its size - views can be clipped
+    // to round rects (but not to ovals) on every API level with circular reveals
+    private final ViewOutlineProvider circleOutline = new ViewOutlineProvider() {
+        @Override
+        public void getOutline(View view, Outline outline) {
+            int centerX = view.getWidth() / 2;
+            int centerY = view.getHeight() / 2;
+            int r = (int) radius;
+            outline.setRoundRect(centerX - r, centerY - r, centerX + r, centerY + r, r);
+        }
+    };
+}
@@ -0,0 +1,135 @@
+// ReactionTimeHistogram.java
+// Distribution of reaction times (milliseconds) in 16 power-of-2 buckets - small enough to keep one per quiz or player
+package com.ahsan.a47_dietel_flagquizapp;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+// Bucket 0 holds times under 64 ms, bucket b the times from 32 << b up to (64 << b) - 1 ms, the last one everything
+// from about 17 minutes up. That's 2x precision, plenty to tell a 400 ms answer from a 3 s one, and write saves only
+// the buckets up to the last used one, as varints - a typical quiz takes about 10 bytes.
+// Not thread safe - record on one thread (the UI thread) only.
+public class ReactionTimeHistogram {
+
+    static final int BUCKETS = 16;
+    private static final int FIRST_BUCKET_SHIFT = 6; // bucket 0 ends at 1 << 6 = 64 ms
+
+    private final int[] counts = new int[BUCKETS];
+
+    // adds one reaction time - negative times (clock trouble) count as 0
+    public void add(long millis) {
+        ++counts[bucketIndex(millis)];
+    }
+
+    // adds every time recorded by other, e.g. a finished quiz to the all-time distribution
+    public void addAll(ReactionTimeHistogram other) {
+        for (int bucket = 0; bucket < BUCKETS; bucket++)
+            counts[bucket] += other.counts[bucket];
+    }
+
+    public void clear() {
+        for (int bucket = 0; bucket < BUCKETS; bucket++)
+            counts[bucket] = 0;
+    }
+
+    static int bucketIndex(long millis) {
+        if (millis < 1L << FIRST_BUCKET_SHIFT)
+            return 0;
+        return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(millis) - FIRST_BUCKET_SHIFT);
+    }
+
+    // largest time that falls into bucket - Long.MAX_VALUE for the last one
+    static long bucketUpperBound(int bucket) {
+        return bucket < BUCKETS - 1 ? (1L << (bucket + FIRST_BUCKET_SHIFT)) - 1 : Long.MAX_VALUE;
+    }
+
+
+
+
+
+    public int count() {
+        int count = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++)
+            count += counts[bucket];
+        return count;
+    }
+
+    public int getCount(int bucket) {
+        return counts[bucket];
+    }
+
+    // time (milliseconds) that percentile percent of the recorded times don't exceed - the upper bound of its bucket,
+    // or -1 if nothing was recorded
+    public long percentileMillis(double percentile) {
+        int count = count();
+        if (count == 0)
+            return -1;
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank)
+                return bucketUpperBound(bucket);
+        }
+        return bucketUpperBound(BUCKETS - 1);
+    }
+
+    // the counts as an int array, e.g. for a Bundle - see setCounts
+    public int[] getCounts() {
+        return counts.clone();
+    }
+
+    // replaces every count by counts (as returned by getCounts) - returns false, changing nothing, if it has the wrong size
+    public boolean setCounts(int[] counts) {
+        if (counts == null || counts.length != BUCKETS)
+            return false;
+        System.arraycopy(counts, 0, this.counts, 0, BUCKETS);
+        return true;
+    }
+
+
+
+
+
+    // saves the counts as: number of buckets up to the last one used, then their counts, all as unsigned varints
+    public void write(DataOutput out) throws IOException {
+        int used = BUCKETS;
+        while (used > 0 && counts[used - 1] == 0)
+            --used;
+        writeVarint(out, used);
+        for (int bucket = 0; bucket < used; bucket++)
+            writeVarint(out, counts[bucket]);
+    }
+
+    public static ReactionTimeHistogram read(DataInput in) throws IOException {
+        ReactionTimeHistogram histogram = new ReactionTimeHistogram();
+        int used = readVarint(in);
+        if (used > BUCKETS)
+            throw new IOException("Corrupt reaction times");
+        for (int bucket = 0; bucket < used; bucket++)
+            histogram.counts[bucket] = readVarint(in);
+        return histogram;
+    }
+
+    // 7 bits per byte, lowest first, the top bit set on every byte but the last
+    private static void writeVarint(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarint(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new IOException("Corrupt reaction times");
+    }
+}
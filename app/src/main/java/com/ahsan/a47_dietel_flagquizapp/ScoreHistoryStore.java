@@ -0,0 +1,271 @@
+// ScoreHistoryStore.java
+// Append-only binary log of every guess and finished quiz, plus a saved copy of the running totals
+package com.ahsan.a47_dietel_flagquizapp;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.Executor;
+
+public class ScoreHistoryStore {
+
+    public static final String LOG_FILE = "score_history.log";
+    public static final String STATS_FILE = "score_stats.bin";
+
+    // every record is RECORD_SIZE bytes (big endian): byte type, byte flags, unsigned short flagId,
+    // long timestamp (milliseconds since 1970), int value
+    static final int RECORD_SIZE = 16;
+    static final byte TYPE_GUESS = 1; // flagId is the flag asked, value the reaction time in milliseconds (-1 if unknown)
+    static final byte TYPE_QUIZ = 2; // flagId is the number of correct answers, value the number of guesses
+    static final byte TYPE_TIMED_QUIZ = 3; // flagId is the number of questions, value the points - logged just before its TYPE_QUIZ
+    static final byte TYPE_CATALOG = 4; // value is the FlagCatalog fingerprint the flag ids of the later records belong to
+    static final byte FLAG_CORRECT = 1;
+
+    static final int STATS_MAGIC = 0x464C4753; // "FLGS" - first 4 bytes of the stats file
+    static final int STATS_VERSION = 4; // 2 added the per flag last seen time, 3 the timed quizzes and reaction time distribution, 4 the catalog fingerprint
+    static final int NO_CATALOG = 0; // fingerprint of a log from before TYPE_CATALOG - its flag ids can't be trusted
+
+    private static final int BUFFER_RECORDS = 256; // records collected in memory before they're written
+    private static final int REPLAY_RECORDS = 4096; // records read at once when the log is replayed
+
+    private final FileChannel log; // only touched by the executor once the store is open
+    private final File statsFile;
+    private final int catalog; // fingerprint of the flag catalog whose ids are recorded
+    private final Executor executor; // writes, fsyncs and stats snapshots run here, one batch after the other - must run tasks in order
+    private final ScoreStats stats; // totals including the records not written yet
+
+    private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_RECORDS * RECORD_SIZE); // records not handed to the executor yet
+    private ByteBuffer spare; // second buffer, given back by the executor after writing it, so batches don't allocate
+    private long logLength; // log size once every batch handed to the executor is written
+    private volatile IOException writeError; // first failure of a background write - nothing is appended after it
+
+    private ScoreHistoryStore(FileChannel log, File statsFile, int catalog, Executor executor, ScoreStats stats, long logLength) {
+        this.log = log;
+        this.statsFile = statsFile;
+        this.catalog = catalog;
+        this.executor = executor;
+        this.stats = stats;
+        this.logLength = logLength;
+    }
+
+    // opens (or creates) the history in directory. The totals come from the stats file, and only the records
+    // logged after it was saved are replayed - the whole log is read only if the stats file is missing or damaged.
+    // catalog is FlagCatalog.fingerprint() of the flags played now: the per flag totals recorded with other flag ids
+    // (an app update added, removed or renamed flags) are dropped, the quiz and guess totals are kept.
+    public static ScoreHistoryStore open(File directory, int catalog, Executor executor) throws IOException {
+        File statsFile = new File(directory, STATS_FILE);
+        FileChannel log = new RandomAccessFile(new File(directory, LOG_FILE), "rw").getChannel();
+
+        try {
+            long length = log.size() - log.size() % RECORD_SIZE;
+            log.truncate(length); // drops a record cut off by a crash
+
+            ScoreStats stats = null;
+            long replayFrom = 0;
+            int statsCatalog = NO_CATALOG;
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(statsFile)))) {
+                if (in.readInt() == STATS_MAGIC && in.readInt() == STATS_VERSION) {
+                    long covered = in.readLong(); // log length the totals include
+                    int coveredCatalog = in.readInt(); // catalog of the per flag totals
+                    if (covered <= length) {
+                        stats = ScoreStats.read(in);
+                        replayFrom = covered;
+                        statsCatalog = coveredCatalog;
+                    }
+                }
+            } catch (IOException exception) {
+                // no usable stats file - rebuilt from the whole log below
+            }
+            if (stats == null)
+                stats = new ScoreStats();
+
+            int logCatalog = replay(log, replayFrom, length, stats, statsCatalog);
+            log.position(length);
+            ScoreHistoryStore store = new ScoreHistoryStore(log, statsFile, catalog, executor, stats, length);
+            if (logCatalog != catalog) {
+                // the flag ids changed - log the new catalog, so a replay drops the older per flag records too
+                stats.clearFlags();
+                store.put(TYPE_CATALOG, (byte) 0, 0, System.currentTimeMillis(), catalog);
+                store.commit();
+            }
+            return store;
+        } catch (IOException exception) {
+            log.close();
+            throw exception;
+        }
+    }
+
+    // adds the records of the log between from and to (byte positions) to stats - catalog is the fingerprint in
+    // effect at from, the one in effect at to is returned
+    private static int replay(FileChannel log, long from, long to, ScoreStats stats, int catalog) throws IOException {
+        ByteBuffer chunk = ByteBuffer.allocate(REPLAY_RECORDS * RECORD_SIZE);
+
+        for (long position = from; position < to; position += chunk.limit()) {
+            chunk.clear();
+            chunk.limit((int) Math.min(chunk.capacity(), to - position));
+            while (chunk.hasRemaining())
+                if (log.read(chunk, position + chunk.position()) < 0)
+                    throw new EOFException();
+
+            chunk.flip();
+            while (chunk.hasRemaining())
+                catalog = apply(chunk, stats, catalog);
+        }
+        return catalog;
+    }
+
+    // reads one record at the buffer's position and adds it to stats - returns the catalog in effect after it
+    private static int apply(ByteBuffer record, ScoreStats stats, int catalog) {
+        byte type = record.get();
+        byte flags = record.get();
+        int flagId = record.getShort() & 0xFFFF;
+        long timestamp = record.getLong();
+        int value = record.getInt();
+
+        if (type == TYPE_GUESS)
+            stats.addGuess(flagId, (flags & FLAG_CORRECT) != 0, value, timestamp);
+        else if (type == TYPE_QUIZ)
+            stats.addQuiz(flagId, value);
+        else if (type == TYPE_TIMED_QUIZ)
+            stats.addTimedQuiz(value);
+        else if (type == TYPE_CATALOG && value != catalog) {
+            stats.clearFlags(); // the per flag totals so far are for other flag ids
+            return value;
+        }
+        return catalog;
+    }
+
+
+
+
+
+    // logs one guess at the flag flagId - reactionMillis is the time the user took, or -1 if unknown
+    public synchronized void recordGuess(int flagId, boolean correct, int reactionMillis) {
+        long now = System.currentTimeMillis();
+        stats.addGuess(flagId, correct, reactionMillis, now);
+        put(TYPE_GUESS, correct ? FLAG_CORRECT : 0, flagId, now, reactionMillis);
+    }
+
+    // logs a finished quiz - correctAnswers questions answered (a timed out one isn't) with totalGuesses guesses - and
+    // commits everything logged so far
+    public synchronized void recordQuiz(int correctAnswers, int totalGuesses) {
+        stats.addQuiz(correctAnswers, totalGuesses);
+        put(TYPE_QUIZ, (byte) 0, correctAnswers, System.currentTimeMillis(), totalGuesses);
+        commit();
+    }
+
+    // logs the points of a timed quiz - call recordQuiz for the quiz right after
+    public synchronized void recordTimedQuiz(int flagsInQuiz, int points) {
+        stats.addTimedQuiz(points);
+        put(TYPE_TIMED_QUIZ, (byte) 0, flagsInQuiz, System.currentTimeMillis(), points);
+    }
+
+    private void put(byte type, byte flags, int flagId, long timestamp, int value) {
+        buffer.put(type).put(flags).putShort((short) flagId).putLong(timestamp).putInt(value);
+        if (!buffer.hasRemaining())
+            commit();
+    }
+
+    // hands the buffered records to the executor, which appends them to the log, syncs it once for the whole batch
+    // and saves the totals - called after every quiz, when the buffer is full and when the app leaves the screen.
+    // After a failed write the records are dropped: the log may end in part of a batch, and appending behind it would
+    // save totals for a log length that isn't on disk. The totals in memory still count them until the app restarts.
+    public synchronized void commit() {
+        if (buffer.position() == 0)
+            return;
+        if (writeError != null) {
+            buffer.clear();
+            return;
+        }
+
+        final ByteBuffer records = buffer;
+        records.flip();
+        buffer = spare != null ? spare : ByteBuffer.allocate(BUFFER_RECORDS * RECORD_SIZE);
+        spare = null;
+
+        logLength += records.remaining();
+        final long length = logLength;
+        final ScoreStats snapshot = new ScoreStats(stats); // stats keep changing while the executor saves the copy
+
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                write(records, length, snapshot);
+            }
+        });
+    }
+
+    // runs on the executor - skips the batches handed over before an earlier one failed
+    private void write(ByteBuffer records, long length, ScoreStats snapshot) {
+        if (writeError == null) {
+            try {
+                while (records.hasRemaining())
+                    log.write(records);
+                log.force(false); // one fsync per batch instead of one per guess
+                saveStats(snapshot, length);
+            } catch (IOException exception) {
+                writeError = exception;
+            }
+        }
+
+        records.clear();
+        synchronized (this) {
+            spare = records;
+        }
+    }
+
+    // writes the totals to a temporary file and renames it, so a crash leaves either the old or the new stats file
+    private void saveStats(ScoreStats snapshot, long length) throws IOException {
+        File temporary = new File(statsFile.getPath() + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(temporary)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file));
+            out.writeInt(STATS_MAGIC);
+            out.writeInt(STATS_VERSION);
+            out.writeLong(length);
+            out.writeInt(catalog);
+            snapshot.write(out);
+            out.flush();
+            file.getFD().sync();
+        }
+        if (!temporary.renameTo(statsFile))
+            throw new IOException("Can't replace " + statsFile);
+    }
+
+    // commits the buffered records and closes the log once they're written - the store can't be used afterwards
+    public void close() {
+        commit();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    log.close();
+                } catch (IOException exception) {
+                    writeError = exception;
+                }
+            }
+        });
+    }
+
+
+
+
+
+    // running totals over the whole history, including records not written yet - read them on the thread that records
+    public ScoreStats getStats() {
+        return stats;
+    }
+
+    // the error that stopped the background writes, or null if every write so far succeeded
+    public IOException getWriteError() {
+        return writeError;
+    }
+}
@@ -0,0 +1,235 @@
+// ScoreStats.java
+// Running totals over the whole score history, updated one record at a time so they never need a rescan
+package com.ahsan.a47_dietel_flagquizapp;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+public class ScoreStats {
+
+    // quizzes
+    private int quizCount;
+    private long quizCorrectAnswers; // questions answered in all finished quizzes
+    private long quizGuesses; // guesses needed for them
+    private double bestPercent; // best percentCorrect of a single quiz
+    private int timedQuizCount;
+    private int bestTimedPoints; // most points of a single timed quiz
+
+    // guesses
+    private long guessCount;
+    private long correctCount;
+    private long reactionMillisSum; // over the guesses whose reaction time was known
+    private long reactionCount;
+    private ReactionTimeHistogram reactionTimes = new ReactionTimeHistogram(); // of the correct guesses whose reaction time was known
+    private int currentStreak; // correct guesses in a row, up to the latest one
+    private int bestStreak;
+
+    // per flag id, grown as higher ids show up
+    private int[] flagGuesses = new int[0];
+    private int[] flagCorrect = new int[0];
+    private long[] flagLastSeen = new long[0]; // time of the latest guess (milliseconds since 1970), 0 if never guessed
+
+    public ScoreStats() {
+    }
+
+    // copy of other, e.g. to save it on another thread while other keeps changing
+    public ScoreStats(ScoreStats other) {
+        quizCount = other.quizCount;
+        quizCorrectAnswers = other.quizCorrectAnswers;
+        quizGuesses = other.quizGuesses;
+        bestPercent = other.bestPercent;
+        timedQuizCount = other.timedQuizCount;
+        bestTimedPoints = other.bestTimedPoints;
+        guessCount = other.guessCount;
+        correctCount = other.correctCount;
+        reactionMillisSum = other.reactionMillisSum;
+        reactionCount = other.reactionCount;
+        reactionTimes.addAll(other.reactionTimes);
+        currentStreak = other.currentStreak;
+        bestStreak = other.bestStreak;
+        flagGuesses = other.flagGuesses.clone();
+        flagCorrect = other.flagCorrect.clone();
+        flagLastSeen = other.flagLastSeen.clone();
+    }
+
+
+
+
+
+    // forgets the per flag totals, e.g. because the flag ids belong to another flag catalog - the other totals stay
+    public void clearFlags() {
+        flagGuesses = new int[0];
+        flagCorrect = new int[0];
+        flagLastSeen = new long[0];
+    }
+
+    // adds one guess at the flag flagId, made at timestamp; reactionMillis is the time the user took, or negative if unknown
+    public void addGuess(int flagId, boolean correct, int reactionMillis, long timestamp) {
+        if (flagId >= flagGuesses.length) {
+            int capacity = Math.max(flagId + 1, Math.min(flagGuesses.length * 2, 0x10000));
+            flagGuesses = Arrays.copyOf(flagGuesses, capacity);
+            flagCorrect = Arrays.copyOf(flagCorrect, capacity);
+            flagLastSeen = Arrays.copyOf(flagLastSeen, capacity);
+        }
+
+        ++guessCount;
+        ++flagGuesses[flagId];
+        flagLastSeen[flagId] = Math.max(flagLastSeen[flagId], timestamp);
+        if (correct) {
+            ++correctCount;
+            ++flagCorrect[flagId];
+            bestStreak = Math.max(bestStreak, ++currentStreak);
+        } else {
+            currentStreak = 0;
+        }
+
+        if (reactionMillis >= 0) {
+            reactionMillisSum += reactionMillis;
+            ++reactionCount;
+            if (correct)
+                reactionTimes.add(reactionMillis);
+        }
+    }
+
+    // adds one finished quiz with correctAnswers questions answered in totalGuesses guesses
+    public void addQuiz(int correctAnswers, int totalGuesses) {
+        ++quizCount;
+        quizCorrectAnswers += correctAnswers;
+        quizGuesses += totalGuesses;
+        if (totalGuesses > 0)
+            bestPercent = Math.max(bestPercent, 100.0 * correctAnswers / totalGuesses);
+    }
+
+    // adds the points of one finished timed quiz (its guesses and the quiz itself are added by addGuess and addQuiz)
+    public void addTimedQuiz(int points) {
+        ++timedQuizCount;
+        bestTimedPoints = Math.max(bestTimedPoints, points);
+    }
+
+
+
+
+
+    public int getQuizCount() {
+        return quizCount;
+    }
+
+    // percentage of correct guesses over all finished quizzes
+    public double getAveragePercent() {
+        return quizGuesses == 0 ? 0 : 100.0 * quizCorrectAnswers / quizGuesses;
+    }
+
+    public double getBestPercent() {
+        return bestPercent;
+    }
+
+    public int getTimedQuizCount() {
+        return timedQuizCount;
+    }
+
+    public int getBestTimedPoints() {
+        return bestTimedPoints;
+    }
+
+    public long getGuessCount() {
+        return guessCount;
+    }
+
+    public long getCorrectCount() {
+        return correctCount;
+    }
+
+    public int getCurrentStreak() {
+        return currentStreak;
+    }
+
+    public int getBestStreak() {
+        return bestStreak;
+    }
+
+    // average time from the flag appearing to a guess, or 0 if no reaction time was recorded
+    public double getAverageReactionMillis() {
+        return reactionCount == 0 ? 0 : (double) reactionMillisSum / reactionCount;
+    }
+
+    // distribution of the times the correct guesses took - read only, it keeps changing with every guess
+    public ReactionTimeHistogram getReactionTimes() {
+        return reactionTimes;
+    }
+
+    public int getFlagGuesses(int flagId) {
+        return flagId < flagGuesses.length ? flagGuesses[flagId] : 0;
+    }
+
+    public int getFlagCorrect(int flagId) {
+        return flagId < flagCorrect.length ? flagCorrect[flagId] : 0;
+    }
+
+    public long getFlagLastSeen(int flagId) {
+        return flagId < flagLastSeen.length ? flagLastSeen[flagId] : 0;
+    }
+
+    // fraction of the guesses at flagId that were correct, or -1 if it was never guessed
+    public double getFlagAccuracy(int flagId) {
+        int guesses = getFlagGuesses(flagId);
+        return guesses == 0 ? -1 : (double) getFlagCorrect(flagId) / guesses;
+    }
+
+
+
+
+
+    // saves every total, for read to restore them without replaying the history
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(quizCount);
+        out.writeLong(quizCorrectAnswers);
+        out.writeLong(quizGuesses);
+        out.writeDouble(bestPercent);
+        out.writeInt(timedQuizCount);
+        out.writeInt(bestTimedPoints);
+        out.writeLong(guessCount);
+        out.writeLong(correctCount);
+        out.writeLong(reactionMillisSum);
+        out.writeLong(reactionCount);
+        reactionTimes.write(out);
+        out.writeInt(currentStreak);
+        out.writeInt(bestStreak);
+        out.writeInt(flagGuesses.length);
+        for (int flagId = 0; flagId < flagGuesses.length; flagId++) {
+            out.writeInt(flagGuesses[flagId]);
+            out.writeInt(flagCorrect[flagId]);
+            out.writeLong(flagLastSeen[flagId]);
+        }
+    }
+
+    public static ScoreStats read(DataInput in) throws IOException {
+        ScoreStats stats = new ScoreStats();
+        stats.quizCount = in.readInt();
+        stats.quizCorrectAnswers = in.readLong();
+        stats.quizGuesses = in.readLong();
+        stats.bestPercent = in.readDouble();
+        stats.timedQuizCount = in.readInt();
+        stats.bestTimedPoints = in.readInt();
+        stats.guessCount = in.readLong();
+        stats.correctCount = in.readLong();
+        stats.reactionMillisSum = in.readLong();
+        stats.reactionCount = in.readLong();
+        stats.reactionTimes = ReactionTimeHistogram.read(in);
+        stats.currentStreak = in.readInt();
+        stats.bestStreak = in.readInt();
+        int flagCount = in.readInt();
+        if (flagCount < 0 || flagCount > 0x10000) // flag ids are stored as unsigned shorts
+            throw new IOException("Corrupt score stats");
+        stats.flagGuesses = new int[flagCount];
+        stats.flagCorrect = new int[flagCount];
+        stats.flagLastSeen = new long[flagCount];
+        for (int flagId = 0; flagId < flagCount; flagId++) {
+            stats.flagGuesses[flagId] = in.readInt();
+            stats.flagCorrect[flagId] = in.readInt();
+            stats.flagLastSeen[flagId] = in.readLong();
+        }
+        return stats;
+    }
+}
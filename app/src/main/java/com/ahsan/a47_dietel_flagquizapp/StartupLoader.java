@@ -0,0 +1,185 @@
+// StartupLoader.java
+// Loads the preferences and the flag repository on background threads, so the first frame never waits for disk reads
+package com.ahsan.a47_dietel_flagquizapp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Trace;
+import android.preference.PreferenceManager;
+import android.util.Log;
+
+public final class StartupLoader {
+
+    // receives the loaded preferences and repository on the main thread - or why they couldn't be loaded
+    public interface Callback {
+        void onStartupComplete(FlagRepository repository, SharedPreferences preferences);
+        void onStartupFailed(RuntimeException error); // e.g. a missing or corrupt flag catalog - the next load tries again
+    }
+
+    private static final String TAG = "FlagQuiz Activity";
+
+    // names of the startup sections in systrace / Android Studio's CPU profiler
+    static final String TRACE_PREFERENCES = "FlagQuiz.loadPreferences";
+    static final String TRACE_REPOSITORY = "FlagQuiz.loadRepository";
+
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // main thread only
+    private static final List<Callback> pending = new ArrayList<>(); // waiting for the load to finish
+    private static boolean started;
+    private static FlagRepository repository; // null until the load finished
+    private static SharedPreferences preferences;
+    private static long startTime; // QuizMetrics.now() when the load started
+
+    private StartupLoader() {
+    }
+
+    // calls callback once everything is loaded - right away if it already is. Must be called on the main thread.
+    public static void load(Context context, Callback callback) {
+        if (repository != null) {
+            callback.onStartupComplete(repository, preferences);
+            return;
+        }
+
+        pending.add(callback);
+        if (!started) {
+            started = true;
+            start(context.getApplicationContext());
+        }
+    }
+
+    // forgets a callback that hasn't been called yet, e.g. when its Activity is destroyed first
+    public static void cancel(Callback callback) {
+        pending.remove(callback);
+    }
+
+    // the loaded repository, or null while the load is still running - never blocks, unlike FlagRepository.get
+    public static FlagRepository getRepository() {
+        return repository;
+    }
+
+    // forgets the loaded repository and preferences, so the next load starts over - for tests, which get a fresh
+    // Application (and preferences file) every time while this class keeps its state. Main thread, after the load finished.
+    static void reset() {
+        pending.clear();
+        started = false;
+        repository = null;
+        preferences = null;
+        FlagRepository.reset();
+    }
+
+
+
+
+
+    // reads the preferences on one thread and the flag catalog, atlas and score history on another, then
+    // hands both to the main thread - which until then only inflates the layout and draws the placeholder
+    private static void start(final Context context) {
+        if (QuizMetrics.ENABLED)
+            startTime = QuizMetrics.now();
+
+        final ExecutorService executor = Executors.newFixedThreadPool(2); // only needed once, shut down below
+
+        final Future<SharedPreferences> loadedPreferences = executor.submit(new Callable<SharedPreferences>() {
+            @Override
+            public SharedPreferences call() {
+                Trace.beginSection(TRACE_PREFERENCES);
+                try {
+                    // set default values in the app's SharedPreferences - this also waits until their file is read,
+                    // so the main thread's reads never block on it
+                    PreferenceManager.setDefaultValues(context, R.xml.preferences, false);//false indicates that the default preference values should be set only the first time this method is called.
+                    return PreferenceManager.getDefaultSharedPreferences(context);
+                } finally {
+                    Trace.endSection();
+                }
+            }
+        });
+
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final FlagRepository loadedRepository;
+                final SharedPreferences loaded;
+                try {
+                    Trace.beginSection(TRACE_REPOSITORY);
+                    try {
+                        loadedRepository = FlagRepository.get(context);
+                    } finally {
+                        Trace.endSection();
+                    }
+                    loaded = await(loadedPreferences);
+                } catch (final RuntimeException exception) {
+                    // thrown here, it would only end this thread - the main thread would wait for the flags forever
+                    Log.e(TAG, "Error loading the flags", exception);
+                    mainHandler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            fail(exception);
+                        }
+                    });
+                    return;
+                }
+
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        finish(loadedRepository, loaded);
+                    }
+                });
+            }
+        });
+
+        executor.shutdown(); // lets both tasks finish, then the threads exit
+    }
+
+    // main thread
+    private static void finish(FlagRepository loadedRepository, SharedPreferences loadedPreferences) {
+        repository = loadedRepository;
+        preferences = loadedPreferences;
+        if (QuizMetrics.ENABLED)
+            QuizMetrics.STARTUP_LOAD.record(QuizMetrics.now() - startTime);
+
+        // a callback may load again or cancel, so work on a copy
+        Callback[] callbacks = pending.toArray(new Callback[pending.size()]);
+        pending.clear();
+        for (Callback callback : callbacks)
+            callback.onStartupComplete(repository, preferences);
+    }
+
+    // main thread - nothing was loaded, so the next load starts over
+    private static void fail(RuntimeException error) {
+        started = false;
+        Callback[] callbacks = pending.toArray(new Callback[pending.size()]);
+        pending.clear();
+        for (Callback callback : callbacks)
+            callback.onStartupFailed(error);
+    }
+
+    private static <T> T await(Future<T> future) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return future.get();
+                } catch (InterruptedException exception) {
+                    interrupted = true; // the startup threads aren't interrupted by anyone - keep waiting
+                }
+            }
+        } catch (ExecutionException exception) {
+            throw new RuntimeException("Error loading the preferences", exception.getCause()); // reported to the callbacks by start
+        } finally {
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+    }
+}
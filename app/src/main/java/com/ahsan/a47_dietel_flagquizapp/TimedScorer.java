@@ -0,0 +1,106 @@
+// TimedScorer.java
+// Scores a timed quiz by reaction time - the sooner a correct answer after the flag appeared, the more points
+package com.ahsan.a47_dietel_flagquizapp;
+
+// Every time is a System.nanoTime value: monotonic, so neither a clock change nor a sleep of the device can make an
+// answer look faster or slower, and the same time base as Choreographer's frame times, which mark when a flag was
+// drawn. Knows nothing about Android - MainActivityFragment passes the times in.
+public class TimedScorer {
+
+    public static final long DEFAULT_TIME_LIMIT_NANOS = 10 * 1000000000L; // per question
+    static final int MAX_POINTS = 1000; // answered the moment the flag appeared
+    static final int MIN_POINTS = 100; // answered correctly just before the time ran out
+
+    private final long timeLimitNanos;
+    private final ReactionTimeHistogram reactionTimes = new ReactionTimeHistogram(); // of this quiz's correct answers
+    private long visibleNanos; // when the current flag was first completely on screen
+    private boolean timing; // the current question's time is running
+    private int points; // of this quiz
+
+    public TimedScorer(long timeLimitNanos) {
+        this.timeLimitNanos = timeLimitNanos;
+    }
+
+    // starts a new quiz - no points, no reaction times
+    public void reset() {
+        timing = false;
+        points = 0;
+        reactionTimes.clear();
+    }
+
+    // the current question's flag was first drawn completely at nanos - its time starts running
+    public void flagVisible(long nanos) {
+        visibleNanos = nanos;
+        timing = true;
+    }
+
+    // true between flagVisible and the question's correct answer or time out
+    public boolean isTiming() {
+        return timing;
+    }
+
+    // time the current question has left at nanos, never negative - the whole limit before its flag is visible
+    public long remainingNanos(long nanos) {
+        if (!timing)
+            return timeLimitNanos;
+        return Math.max(0, timeLimitNanos - (nanos - visibleNanos));
+    }
+
+    // the current question was answered correctly at nanos - returns the points it's worth, 0 if its time had run out
+    // (or never started)
+    public int correctAnswer(long nanos) {
+        if (!timing)
+            return 0;
+        timing = false;
+
+        long reaction = Math.max(0, nanos - visibleNanos);
+        if (reaction >= timeLimitNanos)
+            return 0;
+        reactionTimes.add(reaction / 1000000);
+        int earned = MIN_POINTS + (int) ((MAX_POINTS - MIN_POINTS) * (timeLimitNanos - reaction) / timeLimitNanos);
+        points += earned;
+        return earned;
+    }
+
+    // the current question's time ran out - it scores nothing
+    public void timeOut() {
+        timing = false;
+    }
+
+
+
+
+
+    public long getTimeLimitNanos() {
+        return timeLimitNanos;
+    }
+
+    public int getPoints() {
+        return points;
+    }
+
+    public ReactionTimeHistogram getReactionTimes() {
+        return reactionTimes;
+    }
+
+    // the quiz's points and reaction times, e.g. for onSaveInstanceState - the running question's time isn't saved,
+    // it starts again once the restored question's flag is visible
+    public int[] saveState() {
+        int[] state = new int[1 + ReactionTimeHistogram.BUCKETS];
+        state[0] = points;
+        System.arraycopy(reactionTimes.getCounts(), 0, state, 1, ReactionTimeHistogram.BUCKETS);
+        return state;
+    }
+
+    // continues the quiz saved by saveState - returns false, changing nothing, if state doesn't fit
+    public boolean restoreState(int[] state) {
+        if (state == null || state.length != 1 + ReactionTimeHistogram.BUCKETS)
+            return false;
+        int[] counts = new int[ReactionTimeHistogram.BUCKETS];
+        System.arraycopy(state, 1, counts, 0, counts.length);
+        reactionTimes.setCounts(counts);
+        points = state[0];
+        timing = false;
+        return true;
+    }
+}
@@ -0,0 +1,89 @@
+// WeightedSampler.java
+// Draws indexes with probability proportional to their weight - Fenwick tree, O(log n) per draw and per weight change
+package com.ahsan.a47_dietel_flagquizapp;
+
+import java.util.Random;
+
+public class WeightedSampler {
+
+    private final long[] weights; // weight of every index
+    private final long[] tree; // Fenwick tree: tree[i] is the sum of weights (i - lowbit(i), i], 1-based
+    private final int highestBit; // largest power of 2 not above the size, where sample starts its descent
+
+    public WeightedSampler(int size) {
+        weights = new long[size];
+        tree = new long[size + 1];
+        highestBit = size == 0 ? 0 : Integer.highestOneBit(size);
+    }
+
+    public int size() {
+        return weights.length;
+    }
+
+    public long weight(int index) {
+        return weights[index];
+    }
+
+    // sum of all weights
+    public long total() {
+        long sum = 0;
+        for (int i = tree.length - 1; i > 0; i -= i & -i)
+            sum += tree[i];
+        return sum;
+    }
+
+    // changes the weight of one index (weights can't be negative) - O(log n)
+    public void set(int index, long weight) {
+        long delta = weight - weights[index];
+        weights[index] = weight;
+        for (int i = index + 1; i < tree.length; i += i & -i)
+            tree[i] += delta;
+    }
+
+    // replaces every weight at once - O(n), cheaper than calling set for each of them
+    public void setAll(long[] newWeights) {
+        System.arraycopy(newWeights, 0, weights, 0, weights.length);
+        for (int i = 1; i < tree.length; i++)
+            tree[i] = weights[i - 1];
+        for (int i = 1; i < tree.length; i++) {
+            int parent = i + (i & -i);
+            if (parent < tree.length)
+                tree[parent] += tree[i];
+        }
+    }
+
+    // draws an index with probability weight(index) / total(), or returns -1 if every weight is 0 - O(log n)
+    public int sample(Random random) {
+        long total = total();
+        if (total <= 0)
+            return -1;
+        return find(nextLong(random, total));
+    }
+
+    // index whose cumulative weight range contains target, i.e. the first index whose prefix sum exceeds target
+    private int find(long target) {
+        int position = 0;
+        for (int bit = highestBit; bit != 0; bit >>= 1) {
+            int next = position + bit;
+            if (next < tree.length && tree[next] <= target) {
+                position = next;
+                target -= tree[next];
+            }
+        }
+        return position; // 1-based position of the last prefix not exceeding target, so the 0-based index of the next one
+    }
+
+    // uniform long in [0, bound) - Random.nextLong(bound) doesn't exist before Java 8
+    private static long nextLong(Random random, long bound) {
+        if (bound <= Integer.MAX_VALUE)
+            return random.nextInt((int) bound);
+
+        long bits;
+        long value;
+        do {
+            bits = random.nextLong() >>> 1;
+            value = bits % bound;
+        } while (bits - value + (bound - 1) < 0); // reject the uneven tail so every value is equally likely
+        return value;
+    }
+}
@@ -0,0 +1,90 @@
+// XoroshiroRandom.java
+// Fast, seedable random number generator (xoroshiro128+) for the quiz - it has no security needs, so no SecureRandom
+package com.ahsan.a47_dietel_flagquizapp;
+
+import java.util.Random;
+
+// Extends java.util.Random so it plugs into everything that takes a Random (QuizEngine, QuestionSampler,
+// DistractorPicker, ...): any other generator - or a plain Random in tests - can be passed instead.
+// Not thread safe - give every thread its own instance, e.g. with split.
+public class XoroshiroRandom extends Random {
+
+    private static final long serialVersionUID = 1L;
+    private static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
+
+    private long state0; // the 128 bit generator state, never all zero
+    private long state1;
+
+    // seeded from the clock, like new Random()
+    public XoroshiroRandom() {
+        super();
+    }
+
+    // the same seed always gives the same sequence, on every device
+    public XoroshiroRandom(long seed) {
+        super(seed); // calls setSeed
+    }
+
+    // restarts the sequence of seed - the 64 bit seed is spread over the 128 bit state with SplitMix64
+    @Override
+    public synchronized void setSeed(long seed) {
+        super.setSeed(seed); // only resets Random's own nextGaussian cache, its generator isn't used
+        state0 = splitMix64(seed);
+        state1 = splitMix64(seed + 0x9E3779B97F4A7C15L);
+        if (state0 == 0 && state1 == 0)
+            state1 = 1;
+    }
+
+    @Override
+    public long nextLong() {
+        long s0 = state0;
+        long s1 = state1;
+        long result = s0 + s1;
+
+        s1 ^= s0;
+        state0 = Long.rotateLeft(s0, 24) ^ s1 ^ (s1 << 16);
+        state1 = Long.rotateLeft(s1, 37);
+        return result;
+    }
+
+    // every other method of Random (nextInt(bound), nextBoolean, nextDouble, ...) is built on next -
+    // take the high bits, the lowest ones of xoroshiro128+ are the weakest
+    @Override
+    protected int next(int bits) {
+        return (int) (nextLong() >>> (64 - bits));
+    }
+
+    // the generator's current state, e.g. for onSaveInstanceState - setState continues the sequence exactly where it was
+    public long[] getState() {
+        return new long[]{state0, state1};
+    }
+
+    public void setState(long[] state) {
+        if (state.length != 2 || (state[0] == 0 && state[1] == 0))
+            throw new IllegalArgumentException("Not a xoroshiro128+ state");
+        state0 = state[0];
+        state1 = state[1];
+    }
+
+    // a new, independent generator seeded from this one - e.g. one per thread, reproducible if this one is
+    public XoroshiroRandom split() {
+        return new XoroshiroRandom(nextLong());
+    }
+
+
+
+
+
+    // seed shared by every device on the same UTC day, for the daily challenge
+    public static long dailySeed(long currentTimeMillis) {
+        return splitMix64(currentTimeMillis / DAY_MILLIS);
+    }
+
+    // one step of SplitMix64 - turns similar seeds (e.g. consecutive days) into unrelated ones
+    static long splitMix64(long seed) {
+        long z = seed + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
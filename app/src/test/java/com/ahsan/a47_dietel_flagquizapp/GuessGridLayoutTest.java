@@ -0,0 +1,104 @@
+package com.ahsan.a47_dietel_flagquizapp;
+
+import android.view.View;
+import android.view.View.MeasureSpec;
+import android.widget.Button;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link GuessGridLayout}, which run on the development machine (host) with Robolectric.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class GuessGridLayoutTest {
+
+    private static final int WIDTH = 1000;
+
+    private GuessGridLayout grid;
+
+    @Before
+    public void setUp() throws Exception {
+        grid = new GuessGridLayout(RuntimeEnvironment.application);
+    }
+
+    @Test
+    public void buttonCount_reusesButtons() throws Exception {
+        grid.setButtonCount(8);
+        Button[] first = buttons(8);
+
+        grid.setButtonCount(4); // hides the last 4, keeps them
+        assertEquals(8, grid.getChildCount());
+        for (int i = 0; i < 8; i++)
+            assertEquals(i < 4 ? View.VISIBLE : View.GONE, grid.getButton(i).getVisibility());
+
+        grid.setButtonCount(12); // only the 4 Buttons never shown before are new
+        assertEquals(12, grid.getChildCount());
+        assertArrayEquals(first, buttons(8));
+        for (int i = 0; i < 12; i++) {
+            assertEquals(View.VISIBLE, grid.getButton(i).getVisibility());
+            assertEquals(i, grid.getButton(i).getTag());
+        }
+    }
+
+    @Test
+    public void oddButtonCount_fillsRowsOfEqualHeight() throws Exception {
+        grid.setButtonCount(5);
+        layout();
+
+        int rowHeight = grid.getButton(0).getHeight();
+        assertTrue(rowHeight > 0);
+        assertEquals(3 * rowHeight, grid.getHeight());
+        for (int i = 0; i < 5; i++) {
+            Button button = grid.getButton(i);
+            assertEquals(WIDTH / GuessGridLayout.COLUMNS, button.getWidth());
+            assertEquals(rowHeight, button.getHeight());
+            assertEquals((i % GuessGridLayout.COLUMNS) * WIDTH / GuessGridLayout.COLUMNS, button.getLeft());
+            assertEquals((i / GuessGridLayout.COLUMNS) * rowHeight, button.getTop());
+        }
+    }
+
+    @Test
+    public void newLabels_doNotRequestLayout() throws Exception {
+        grid.setButtonCount(4);
+        for (int i = 0; i < 4; i++)
+            grid.setLabel(i, "Country " + i);
+        layout();
+
+        // the next question: new texts, some Buttons disabled - the Buttons keep their size, so no layout pass
+        String[] labels = {"Bosnia and Herzegovina", "Chad", "Saint Vincent and the Grenadines", "Country 3"};
+        for (int i = 0; i < 4; i++) {
+            grid.setLabel(i, labels[i]);
+            grid.getButton(i).setEnabled(i % 2 == 0);
+        }
+        assertFalse(grid.isLayoutRequested());
+        for (int i = 0; i < 4; i++)
+            assertEquals(labels[i], grid.getButton(i).getText().toString());
+
+        grid.setButtonCount(6); // more Buttons do need one
+        assertTrue(grid.isLayoutRequested());
+    }
+
+
+
+
+
+    private void layout() {
+        grid.measure(MeasureSpec.makeMeasureSpec(WIDTH, MeasureSpec.EXACTLY), MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED));
+        grid.layout(0, 0, grid.getMeasuredWidth(), grid.getMeasuredHeight());
+    }
+
+    private Button[] buttons(int count) {
+        Button[] buttons = new Button[count];
+        for (int i = 0; i < count; i++)
+            buttons[i] = grid.getButton(i);
+        return buttons;
+    }
+}
@@ -0,0 +1,54 @@
+package com.ahsan.a47_dietel_flagquizapp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link LatencyHistogram}, which run on the development machine (host).
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void buckets_coverEveryValueOnce() throws Exception {
+        // bounds of neighbouring buckets touch, and every value lands in the bucket whose bounds contain it
+        for (int bucket = 0; bucket + 1 < LatencyHistogram.BUCKET_COUNT; bucket++)
+            assertEquals(LatencyHistogram.bucketUpperBound(bucket) + 1, LatencyHistogram.bucketLowerBound(bucket + 1));
+
+        long[] values = {0, 1, 7, 8, 9, 15, 16, 1000, 999999, 1L << 40, Long.MAX_VALUE};
+        for (long value : values) {
+            int bucket = LatencyHistogram.bucketIndex(value);
+            assertTrue(LatencyHistogram.bucketLowerBound(bucket) <= value);
+            assertTrue(LatencyHistogram.bucketUpperBound(bucket) >= value);
+        }
+        assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.bucketIndex(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void percentiles_areWithinBucketPrecision() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        for (long micros = 1; micros <= 1000; micros++)
+            histogram.record(micros * 1000);
+
+        assertEquals(1000, histogram.count());
+        assertEquals(1000000, histogram.max());
+        assertEquals(500500, histogram.mean(), 0.001);
+        assertEquals(500000, histogram.valueAtPercentile(50), 500000 / 8);
+        assertEquals(990000, histogram.valueAtPercentile(99), 990000 / 8);
+        assertEquals(1000000, histogram.valueAtPercentile(100));
+
+        histogram.reset();
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.valueAtPercentile(50));
+    }
+
+    @Test
+    public void dump_isOneStableLine() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram("decode");
+        histogram.record(2000000);
+
+        StringBuilder out = new StringBuilder();
+        histogram.dump(out);
+        assertEquals("histogram decode count=1 mean_us=2000 p50_us=2000 p90_us=2000 p99_us=2000 max_us=2000\n", out.toString());
+    }
+}
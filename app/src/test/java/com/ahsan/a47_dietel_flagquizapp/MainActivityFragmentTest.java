@@ -0,0 +1,304 @@
+package com.ahsan.a47_dietel_flagquizapp;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import android.content.DialogInterface;
+import android.content.SharedPreferences;
+import android.os.Bundle;
+import android.preference.PreferenceManager;
+import android.support.v7.app.AlertDialog;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.Button;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.util.ActivityController;
+import org.robolectric.util.Scheduler;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Local unit tests for {@link MainActivityFragment}, which run on the development machine (host) with Robolectric -
+ * whole quizzes through the real Activity, layout and guess Buttons, with budgets for the main thread's work per question.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class MainActivityFragmentTest {
+
+    private static final long STARTUP_TIMEOUT_MILLIS = 10000; // the startup threads read the real flag catalog from the assets
+    private static final long DECODE_TIMEOUT_MILLIS = 10000; // the decode threads read the real flag images
+    private static final int TASK_COUNT_BUDGET = 200; // main thread tasks per question - the two reveal animations are most of them
+    // Robolectric's shadows allocate on nearly every framework call, so this only catches real regressions,
+    // e.g. a layout inflated, the assets listed or the flag catalog copied for every question
+    private static final long ALLOCATION_BUDGET_BYTES = 512 * 1024;
+
+    private ActivityController<MainActivity> controller;
+    private MainActivityFragment fragment;
+    private QuizEngine engine;
+    private final QuizEngine.Score score = new QuizEngine.Score();
+
+    @Before
+    public void setUp() throws Exception {
+        StartupLoader.reset(); // every test gets a fresh Application with its own preferences and files
+        start(null);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        controller.pause().stop().destroy();
+        StartupLoader.reset();
+    }
+
+    @Test
+    public void fullQuiz_showsResultsAndStartsOver() throws Exception {
+        Button[] buttons = guessButtons();
+        int viewCount = countViews(fragment.getView());
+
+        engine.snapshot(score);
+        int flagsInQuiz = score.flagsInQuiz;
+        for (int question = 1; question <= flagsInQuiz; question++) {
+            engine.snapshot(score);
+            assertEquals(question, score.questionNumber);
+
+            guessWrong(); // disables that Button, the question stays open
+            assertTrue(engine.isQuestionOpen());
+            answer();
+        }
+
+        // every question was shown with the Buttons inflated by onCreateView - none added, none replaced
+        assertEquals(viewCount, countViews(fragment.getView()));
+        assertArrayEquals(buttons, guessButtons());
+
+        engine.snapshot(score);
+        assertEquals(flagsInQuiz, score.correctAnswers);
+        assertEquals(2 * flagsInQuiz, score.totalGuesses);
+
+        // the results dialog's "Reset Quiz" Button starts a new quiz
+        clickResetQuiz();
+        engine.snapshot(score);
+        assertEquals(1, score.questionNumber);
+        assertEquals(0, score.totalGuesses);
+        assertTrue(engine.isQuestionOpen());
+    }
+
+    @Test
+    public void question_staysWithinMainThreadBudgets() throws Exception {
+        playQuiz(); // warm up, so class loading and the first calls through Robolectric's shadows aren't counted
+        clickResetQuiz();
+
+        Scheduler scheduler = Robolectric.getForegroundThreadScheduler();
+        engine.snapshot(score);
+        for (int question = 1; question < score.flagsInQuiz; question++) {
+            long allocated = QuizEngineTest.allocatedBytes();
+            clickGuess(engine.getCorrectAnswerId());
+
+            // runs the 2 second delay, the animation out, the next question and the animation in, counting every task -
+            // counts and bytes, not times, so a slow or busy build machine can't fail the test
+            int tasks = 0;
+            while (scheduler.size() > 0) {
+                scheduler.runOneTask();
+                ++tasks;
+            }
+            allocated = QuizEngineTest.allocatedBytes() - allocated;
+            runMainThreadTasks(); // the flags still decoding, so the next question starts like this one
+
+            assertTrue("question took " + tasks + " main thread tasks", tasks < TASK_COUNT_BUDGET);
+            if (allocated >= 0)
+                assertTrue("question allocated " + allocated + " bytes", allocated < ALLOCATION_BUDGET_BYTES);
+        }
+    }
+
+    @Test
+    public void choicesChange_keepsTheQuestion() throws Exception {
+        assertEquals(4, guessButtons().length); // the default, there before the first question was drawn
+        guessWrong();
+        int flagId = engine.getCorrectAnswerId();
+
+        preferences().edit().putString(MainActivity.CHOICES, "12").commit();
+        runMainThreadTasks(); // past the debounce delay
+
+        // the same question with new choices - the wrong guess still counts
+        assertEquals(flagId, engine.getCorrectAnswerId());
+        assertEquals(12, engine.getUsedChoiceCount());
+        assertEquals(12, guessButtons().length);
+        engine.snapshot(score);
+        assertEquals(1, score.questionNumber);
+        assertEquals(1, score.totalGuesses);
+        for (Button button : guessButtons())
+            assertEquals(View.VISIBLE, button.getVisibility());
+        answer();
+    }
+
+    @Test
+    public void regionToggles_startOneNewQuiz() throws Exception {
+        assumeTrue(QuizMetrics.ENABLED); // counts resetQuiz calls with QuizMetrics
+        long resets = QuizMetrics.RESET_QUIZ.count();
+
+        preferences().edit().putStringSet(MainActivity.REGIONS, new HashSet<>(Arrays.asList("Europe"))).commit();
+        preferences().edit().putStringSet(MainActivity.REGIONS, new HashSet<>(Arrays.asList("Europe", "Asia"))).commit();
+        preferences().edit().putStringSet(MainActivity.REGIONS, new HashSet<>(Arrays.asList("Asia"))).commit();
+        runMainThreadTasks();
+
+        assertEquals(resets + 1, QuizMetrics.RESET_QUIZ.count());
+        FlagCatalog catalog = engine.getCatalog();
+        int asia = catalog.regionMask(Arrays.asList("Asia"));
+        for (int choice = 0; choice < engine.getUsedChoiceCount(); choice++)
+            assertEquals(asia, 1 << catalog.regionOf(engine.getChoice(choice)));
+    }
+
+    @Test
+    public void recreate_continuesTheQuiz() throws Exception {
+        answer();
+        guessWrong();
+        int flagId = engine.getCorrectAnswerId();
+        int[] choices = choices();
+
+        Bundle state = new Bundle();
+        controller.saveInstanceState(state);
+        controller.pause().stop().destroy();
+        start(state); // the repository is still loaded, like after a rotation
+
+        assertEquals(flagId, engine.getCorrectAnswerId());
+        assertArrayEquals(choices, choices());
+        engine.snapshot(score);
+        assertEquals(2, score.questionNumber);
+        assertEquals(2, score.totalGuesses);
+        answer();
+    }
+
+    @Test
+    public void resetDuringTransition_dropsTheOldQuizsNextFlag() throws Exception {
+        Scheduler scheduler = Robolectric.getForegroundThreadScheduler();
+        QuizTransitionController transitions = fragment.getTransitions();
+        // during the pause after the answer, then while animating it off - one task at a time, since Robolectric's
+        // Choreographer would run a whole animation within one step of the clock
+        for (int state : new int[]{QuizTransitionController.PAUSED, QuizTransitionController.HIDING}) {
+            clickGuess(engine.getCorrectAnswerId());
+            while (transitions.getState() != state) {
+                assertTrue("no task left before state " + state, scheduler.size() > 0);
+                scheduler.runOneTask();
+            }
+            fragment.resetQuiz();
+            int flagId = engine.getCorrectAnswerId();
+            runMainThreadTasks(); // the old quiz's transition would load another flag here
+
+            engine.snapshot(score);
+            assertEquals(1, score.questionNumber);
+            assertEquals(flagId, engine.getCorrectAnswerId());
+            assertTrue(engine.isQuestionOpen());
+        }
+    }
+
+
+
+
+
+    // creates and shows MainActivity, then waits until the startup threads have delivered the first question
+    private void start(Bundle savedInstanceState) throws InterruptedException {
+        controller = Robolectric.buildActivity(MainActivity.class).create(savedInstanceState).start();
+        if (savedInstanceState != null)
+            controller.restoreInstanceState(savedInstanceState);
+        controller.resume().visible();
+        fragment = (MainActivityFragment) controller.get().getSupportFragmentManager().findFragmentById(R.id.quizFragment);
+
+        long deadline = System.currentTimeMillis() + STARTUP_TIMEOUT_MILLIS;
+        while (fragment.getEngine() == null) {
+            assertTrue("startup timed out", System.currentTimeMillis() < deadline);
+            Thread.sleep(5);
+            Robolectric.flushForegroundThreadScheduler(); // runs what the background threads posted
+        }
+        engine = fragment.getEngine();
+        runMainThreadTasks();
+    }
+
+    // clicks the correct Button and runs everything up to the next question (or the results dialog)
+    private void answer() {
+        clickGuess(engine.getCorrectAnswerId());
+        runMainThreadTasks();
+    }
+
+    private void guessWrong() {
+        for (int choice = 0; choice < engine.getUsedChoiceCount(); choice++) {
+            if (engine.getChoice(choice) != engine.getCorrectAnswerId() && !engine.isChoiceGuessed(choice)) {
+                Button button = clickGuess(engine.getChoice(choice));
+                assertFalse(button.isEnabled());
+                return;
+            }
+        }
+        fail("no wrong choice left");
+    }
+
+    private void playQuiz() {
+        do {
+            answer();
+        } while (engine.isQuestionOpen());
+    }
+
+    private void clickResetQuiz() {
+        MyAlertDialogFragment results = (MyAlertDialogFragment) controller.get().getSupportFragmentManager().findFragmentByTag("quiz results");
+        assertNotNull(results);
+        ((AlertDialog) results.getDialog()).getButton(DialogInterface.BUTTON_POSITIVE).performClick();
+        runMainThreadTasks();
+    }
+
+    // clicks the guess Button showing flagId, which goes through guessButtonListener like a touch
+    private Button clickGuess(int flagId) {
+        for (Button button : guessButtons()) {
+            int choice = (Integer) button.getTag();
+            if (choice < engine.getUsedChoiceCount() && engine.getChoice(choice) == flagId) {
+                assertTrue(button.isEnabled());
+                assertTrue(button.performClick());
+                return button;
+            }
+        }
+        throw new AssertionError("no Button for flag " + flagId);
+    }
+
+    // runs the main thread's tasks, including delayed ones (the next flag, animations, the preference debounce), and
+    // waits for the flags they decode on background threads - so every flag is on screen before the next click
+    private void runMainThreadTasks() {
+        long deadline = System.currentTimeMillis() + DECODE_TIMEOUT_MILLIS;
+        Robolectric.flushForegroundThreadScheduler();
+        while (fragment.isLoadingFlags()) {
+            assertTrue("flag decodes timed out", System.currentTimeMillis() < deadline);
+            Thread.yield();
+            Robolectric.flushForegroundThreadScheduler(); // runs the deliveries the decode threads posted
+        }
+    }
+
+    // every guess Button in use
+    private Button[] guessButtons() {
+        GuessGridLayout grid = (GuessGridLayout) fragment.getView().findViewById(R.id.guessGridLayout);
+        Button[] buttons = new Button[grid.getButtonCount()];
+        for (int i = 0; i < buttons.length; i++)
+            buttons[i] = grid.getButton(i);
+        return buttons;
+    }
+
+    private int[] choices() {
+        int[] choices = new int[engine.getUsedChoiceCount()];
+        for (int choice = 0; choice < choices.length; choice++)
+            choices[choice] = engine.getChoice(choice);
+        return choices;
+    }
+
+    private SharedPreferences preferences() {
+        return PreferenceManager.getDefaultSharedPreferences(controller.get());
+    }
+
+    private static int countViews(View view) {
+        int count = 1;
+        if (view instanceof ViewGroup)
+            for (int i = 0; i < ((ViewGroup) view).getChildCount(); i++)
+                count += countViews(((ViewGroup) view).getChildAt(i));
+        return count;
+    }
+}
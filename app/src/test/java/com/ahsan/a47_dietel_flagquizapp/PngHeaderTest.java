@@ -0,0 +1,126 @@
+package com.ahsan.a47_dietel_flagquizapp;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Local unit tests for {@link PngHeader}, which run on the development machine (host).
+ */
+public class PngHeaderTest {
+
+    private static final int TEXT = 0x74455874; // "tEXt"
+    private static final int PLTE = 0x504C5445;
+
+    private final PngHeader header = new PngHeader();
+
+    @Test
+    public void rgb_isOpaque() throws Exception {
+        assertTrue(header.read(png(320, 200, 2, TEXT, PLTE)));
+        assertEquals(320, header.width);
+        assertEquals(200, header.height);
+        assertTrue(header.opaque);
+
+        assertTrue(header.read(png(16, 16, 3, PLTE))); // palette
+        assertTrue(header.opaque);
+    }
+
+    @Test
+    public void alphaChannelOrTrns_isTransparent() throws Exception {
+        assertTrue(header.read(png(100, 50, 6))); // RGBA
+        assertFalse(header.opaque);
+        assertTrue(header.read(png(100, 50, 4))); // gray + alpha
+        assertFalse(header.opaque);
+        assertTrue(header.read(png(100, 50, 3, PLTE, PngHeader.TRNS))); // palette with transparent entries
+        assertFalse(header.opaque);
+        assertTrue(header.read(png(100, 50, 2, TEXT, PngHeader.TRNS))); // one transparent RGB color
+        assertFalse(header.opaque);
+    }
+
+    @Test
+    public void otherData_isRejected() throws Exception {
+        assertFalse(header.read(new ByteArrayInputStream("GIF89a, not a PNG at all".getBytes("US-ASCII"))));
+
+        byte[] png = toBytes(png(100, 50, 2, TEXT));
+        for (int length : new int[]{0, 7, 8, 20, 30}) // cut off before the first pixel
+            assertFalse(header.read(new ByteArrayInputStream(png, 0, length)));
+    }
+
+    @Test
+    public void flagAssets_matchImageIO() throws Exception {
+        File assets = new File("src/main/assets"); // Gradle runs the tests of a module in its folder
+        assumeTrue(assets.isDirectory());
+
+        int flags = 0;
+        for (File region : assets.listFiles()) {
+            File[] files = region.listFiles();
+            if (files == null)
+                continue;
+            for (File file : files) {
+                if (!file.getName().endsWith(".png"))
+                    continue;
+                try (InputStream in = new FileInputStream(file)) {
+                    assertTrue(file.getName(), header.read(in));
+                }
+                BufferedImage image = ImageIO.read(file);
+                assertEquals(file.getName(), image.getWidth(), header.width);
+                assertEquals(file.getName(), image.getHeight(), header.height);
+                assertEquals(file.getName(), !image.getColorModel().hasAlpha(), header.opaque);
+                ++flags;
+            }
+        }
+        assertTrue(flags > 0);
+    }
+
+
+
+
+
+    // a PNG of the given size and color type with empty chunks of the given types between IHDR and IDAT -
+    // no valid CRCs or pixels, PngHeader reads neither
+    private static InputStream png(int width, int height, int colorType, int... chunks) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(PngHeader.SIGNATURE);
+        out.writeInt(13);
+        out.writeInt(PngHeader.IHDR);
+        out.writeInt(width);
+        out.writeInt(height);
+        out.writeByte(8); // bit depth
+        out.writeByte(colorType);
+        out.writeByte(0); // compression, filter and interlace method
+        out.writeByte(0);
+        out.writeByte(0);
+        out.writeInt(0); // CRC
+        for (int type : chunks) {
+            out.writeInt(3);
+            out.writeInt(type);
+            out.write(new byte[3]);
+            out.writeInt(0);
+        }
+        out.writeInt(100);
+        out.writeInt(PngHeader.IDAT);
+        out.write(new byte[100]);
+        out.writeInt(0);
+        return new ByteArrayInputStream(bytes.toByteArray());
+    }
+
+    private static byte[] toBytes(InputStream in) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[256];
+        for (int count; (count = in.read(buffer)) > 0; )
+            out.write(buffer, 0, count);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,59 @@
+package com.ahsan.a47_dietel_flagquizapp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link QuestionSampler}, which run on the development machine (host).
+ */
+public class QuestionSamplerTest {
+
+    private static int[] identity(int n) {
+        int[] pool = new int[n];
+        for (int i = 0; i < n; i++)
+            pool[i] = i;
+        return pool;
+    }
+
+    @Test
+    public void sample_picksDistinctIds() throws Exception {
+        int[] pool = identity(234);
+        int count = new QuestionSampler(42).sample(pool, pool.length, 10);
+
+        assertEquals(10, count);
+        boolean[] seen = new boolean[pool.length];
+        for (int i = 0; i < count; i++) {
+            assertFalse(seen[pool[i]]);
+            seen[pool[i]] = true;
+        }
+    }
+
+    @Test
+    public void sample_returnsWholePoolWhenTooSmall() throws Exception {
+        int[] pool = identity(5);
+        int count = new QuestionSampler(1).sample(pool, pool.length, 10);
+
+        assertEquals(5, count);
+        boolean[] seen = new boolean[5];
+        for (int id : pool)
+            seen[id] = true;
+        for (boolean found : seen)
+            assertTrue(found);
+    }
+
+    @Test
+    public void sample_isDeterministicForSameSeed() throws Exception {
+        int[] first = new int[10];
+        int[] second = new int[10];
+        new QuestionSampler(7).sample(identity(234), 234, 10, first);
+        new QuestionSampler(7).sample(identity(234), 234, 10, second);
+
+        assertArrayEquals(first, second);
+    }
+
+    @Test
+    public void sample_handlesEmptyPool() throws Exception {
+        assertEquals(0, new QuestionSampler(3).sample(new int[0], 0, 10));
+    }
+}
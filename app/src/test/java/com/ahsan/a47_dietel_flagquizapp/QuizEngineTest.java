@@ -0,0 +1,291 @@
+package com.ahsan.a47_dietel_flagquizapp;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link QuizEngine}, which run on the development machine (host).
+ */
+public class QuizEngineTest {
+
+    private FlagCatalog catalog;
+    private QuizEngine engine;
+
+    // builds a catalog of regionCount regions with flagsPerRegion flags each
+    static FlagCatalog syntheticCatalog(int regionCount, int flagsPerRegion) {
+        String[] regions = new String[regionCount];
+        String[][] files = new String[regionCount][flagsPerRegion];
+        for (int region = 0; region < regionCount; region++) {
+            regions[region] = "Region" + region;
+            for (int flag = 0; flag < flagsPerRegion; flag++)
+                files[region][flag] = regions[region] + "-Country_" + flag + ".png";
+        }
+        return FlagCatalog.fromAssetListing(regions, files);
+    }
+
+    private static final java.lang.management.ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    // bytes allocated by the current thread so far, or -1 if the JVM can't tell
+    static long allocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean)
+            return ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(Thread.currentThread().getId());
+        return -1;
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        catalog = syntheticCatalog(6, 40);
+        engine = new QuizEngine(catalog, new Random(1));
+        engine.setRegions(0x3F);
+        engine.setChoiceCount(8);
+    }
+
+    @Test
+    public void fullQuiz_scoresEveryGuess() throws Exception {
+        engine.reset(10);
+        int result = QuizEngine.GUESS_IGNORED;
+
+        while (engine.hasNextQuestion()) {
+            int answer = engine.nextQuestion();
+            assertEquals(8, engine.getUsedChoiceCount());
+
+            // guess one wrong answer, then the right one
+            int wrong = engine.getChoice(0) != answer ? engine.getChoice(0) : engine.getChoice(1);
+            assertEquals(QuizEngine.GUESS_INCORRECT, engine.submitGuess(wrong));
+            result = engine.submitGuess(answer);
+            assertEquals(QuizEngine.GUESS_IGNORED, engine.submitGuess(answer));
+        }
+
+        assertEquals(QuizEngine.QUIZ_COMPLETE, result);
+        QuizEngine.Score score = new QuizEngine.Score();
+        engine.snapshot(score);
+        assertEquals(10, score.correctAnswers);
+        assertEquals(20, score.totalGuesses);
+        assertEquals(50.0, score.percentCorrect(), 0.001);
+    }
+
+    @Test
+    public void timeOut_closesQuestionWithoutAGuess() throws Exception {
+        engine.reset(3);
+        int answer = engine.nextQuestion();
+        assertEquals(QuizEngine.QUESTION_TIMED_OUT, engine.timeOut());
+        assertEquals(QuizEngine.GUESS_IGNORED, engine.submitGuess(answer));
+        assertEquals(QuizEngine.GUESS_IGNORED, engine.timeOut());
+        assertTrue(engine.isTimedOut());
+
+        QuizEngine restored = new QuizEngine(catalog, new Random(5)); // e.g. after a rotation
+        restored.setRegions(0x3F);
+        assertTrue(restored.restoreState(engine.saveState()));
+        assertTrue(restored.isTimedOut());
+        assertFalse(restored.isQuestionOpen());
+
+        assertEquals(QuizEngine.GUESS_CORRECT, engine.submitGuess(engine.nextQuestion()));
+        assertFalse(engine.isTimedOut());
+        engine.nextQuestion();
+        assertEquals(QuizEngine.QUIZ_COMPLETE, engine.timeOut()); // the last question ends the quiz, answered or not
+        assertFalse(engine.hasNextQuestion());
+
+        QuizEngine.Score score = new QuizEngine.Score();
+        engine.snapshot(score);
+        assertEquals(1, score.correctAnswers);
+        assertEquals(1, score.totalGuesses);
+    }
+
+    @Test
+    public void choices_containAnswerOnceAndNoDuplicates() throws Exception {
+        engine.reset(10);
+        while (engine.hasNextQuestion()) {
+            int answer = engine.nextQuestion();
+            int answerCount = 0;
+            for (int i = 0; i < engine.getUsedChoiceCount(); i++) {
+                if (engine.getChoice(i) == answer)
+                    ++answerCount;
+                for (int j = i + 1; j < engine.getUsedChoiceCount(); j++)
+                    assertNotEquals(engine.getChoice(i), engine.getChoice(j));
+            }
+            assertEquals(1, answerCount);
+        }
+    }
+
+    @Test
+    public void regions_limitTheQuizFlags() throws Exception {
+        engine.setRegions(1 << 2);
+        engine.reset(10);
+        while (engine.hasNextQuestion()) {
+            engine.nextQuestion();
+            for (int i = 0; i < engine.getUsedChoiceCount(); i++)
+                assertEquals(2, catalog.regionOf(engine.getChoice(i)));
+        }
+    }
+
+    @Test
+    public void regionChanges_keepExactlyTheEnabledFlags() throws Exception {
+        engine.reset(200); // shuffles the enabled flags
+        engine.setRegions((1 << 1) | (1 << 4)); // four regions off
+        engine.setRegions((1 << 1) | (1 << 3)); // one off, one on
+
+        engine.reset(200);
+        assertEquals(80, engine.getFlagsInQuiz()); // every flag of regions 1 and 3, each once
+        boolean[] asked = new boolean[catalog.size()];
+        while (engine.hasNextQuestion()) {
+            int answer = engine.nextQuestion();
+            assertFalse(asked[answer]);
+            asked[answer] = true;
+            int region = catalog.regionOf(answer);
+            assertTrue(region == 1 || region == 3);
+        }
+    }
+
+    @Test
+    public void refreshChoices_keepsQuestionAndScore() throws Exception {
+        engine.setChoiceCount(4);
+        engine.reset(10);
+        int answer = engine.nextQuestion();
+        int wrong = engine.getChoice(0) != answer ? engine.getChoice(0) : engine.getChoice(1);
+        engine.submitGuess(wrong);
+
+        engine.setChoiceCount(8);
+        engine.refreshChoices();
+
+        assertEquals(answer, engine.getCorrectAnswerId());
+        assertEquals(8, engine.getUsedChoiceCount());
+        assertTrue(engine.isQuestionOpen());
+        assertEquals(1, engine.getTotalGuesses());
+        assertEquals(QuizEngine.GUESS_CORRECT, engine.submitGuess(answer));
+    }
+
+    @Test
+    public void tooFewFlags_shortensQuizAndChoices() throws Exception {
+        FlagCatalog small = syntheticCatalog(1, 3);
+        QuizEngine smallEngine = new QuizEngine(small, new Random(2));
+        smallEngine.setRegions(1);
+        smallEngine.setChoiceCount(8);
+        smallEngine.reset(10);
+
+        assertEquals(3, smallEngine.getFlagsInQuiz());
+        assertEquals(0, smallEngine.getUsedChoiceCount()); // no question yet
+        smallEngine.nextQuestion();
+        assertEquals(3, smallEngine.getUsedChoiceCount());
+        assertEquals(8, smallEngine.getConfiguredChoiceCount()); // still sizes the Button grid
+
+        smallEngine.setChoiceCount(50);
+        assertEquals(QuizEngine.MAX_CHOICES, smallEngine.getConfiguredChoiceCount());
+    }
+
+    @Test
+    public void marathon_asksEveryEnabledFlagOnce() throws Exception {
+        engine.setRegions((1 << 0) | (1 << 5));
+        engine.reset(QuizEngine.ALL_FLAGS);
+        assertEquals(80, engine.getFlagsInQuiz());
+
+        boolean[] asked = new boolean[catalog.size()];
+        int questions = 0;
+        while (engine.hasNextQuestion()) {
+            int upcoming = engine.getUpcomingFlag(3);
+            int answer = engine.nextQuestion();
+            assertFalse(asked[answer]);
+            asked[answer] = true;
+            ++questions;
+            if (questions + 2 < 80)
+                assertEquals(upcoming, engine.getUpcomingFlag(2)); // looking ahead doesn't change the order
+        }
+        assertEquals(80, questions);
+        assertEquals(-1, engine.getUpcomingFlag(1));
+    }
+
+    @Test
+    public void savedState_restoresQuestionScoreAndAskedFlags() throws Exception {
+        engine.reset(30);
+        boolean[] asked = new boolean[catalog.size()];
+        for (int question = 0; question < 12; question++) {
+            asked[engine.nextQuestion()] = true;
+            engine.submitGuess(engine.getCorrectAnswerId());
+        }
+        asked[engine.nextQuestion()] = true;
+        int wrong = engine.getChoice(0) != engine.getCorrectAnswerId() ? 0 : 1;
+        engine.submitGuess(engine.getChoice(wrong));
+
+        QuizEngine restored = new QuizEngine(catalog, new Random(5));
+        restored.setRegions(0x3F);
+        restored.setChoiceCount(8);
+        assertTrue(restored.restoreState(engine.saveState()));
+
+        assertEquals(engine.getCorrectAnswerId(), restored.getCorrectAnswerId());
+        for (int i = 0; i < engine.getUsedChoiceCount(); i++)
+            assertEquals(engine.getChoice(i), restored.getChoice(i));
+        assertTrue(restored.isChoiceGuessed(wrong));
+        assertEquals(13, restored.getTotalGuesses());
+        assertEquals(12, restored.getCorrectAnswers());
+        assertEquals(QuizEngine.GUESS_CORRECT, restored.submitGuess(restored.getCorrectAnswerId()));
+
+        int questions = 13;
+        while (restored.hasNextQuestion()) {
+            int answer = restored.nextQuestion();
+            assertFalse(asked[answer]);
+            asked[answer] = true;
+            ++questions;
+        }
+        assertEquals(30, questions);
+    }
+
+    @Test
+    public void savedState_replaysQuizFromCatalogOrder() throws Exception {
+        engine.resetRegions(0x3F);
+        engine.reset(20);
+        for (int question = 0; question < 5; question++)
+            engine.nextQuestion();
+        engine.getUpcomingFlag(3);
+        int[] state = engine.saveState();
+
+        QuizEngine restored = new QuizEngine(catalog, new Random(5));
+        restored.resetRegions(0x3F);
+        restored.setChoiceCount(8);
+        assertTrue(restored.restoreState(state));
+        while (engine.hasNextQuestion())
+            assertEquals(engine.nextQuestion(), restored.nextQuestion()); // same flags as if it never stopped
+        assertFalse(restored.hasNextQuestion());
+    }
+
+    @Test
+    public void savedState_isRejectedWhenFlagsAreNoLongerEnabled() throws Exception {
+        engine.setRegions(1);
+        engine.reset(10);
+        engine.nextQuestion();
+
+        QuizEngine restored = new QuizEngine(catalog, new Random(5));
+        restored.setRegions(2);
+        assertFalse(restored.restoreState(engine.saveState()));
+        assertFalse(restored.restoreState(new int[3]));
+        assertNull(new QuizEngine(catalog, new Random(5)).saveState());
+    }
+
+    @Test
+    public void steadyState_doesNotAllocate() throws Exception {
+        QuizEngine.Score score = new QuizEngine.Score();
+        playQuizzes(score); // warm up so class loading and JIT compilation aren't counted
+
+        long before = allocatedBytes();
+        playQuizzes(score);
+        long after = allocatedBytes();
+
+        if (before >= 0)
+            assertEquals(0, after - before);
+    }
+
+    private void playQuizzes(QuizEngine.Score score) {
+        for (int quiz = 0; quiz < 50; quiz++) {
+            engine.reset(200);
+            while (engine.hasNextQuestion()) {
+                engine.nextQuestion();
+                engine.submitGuess(engine.getChoice(0));
+                engine.submitGuess(engine.getCorrectAnswerId());
+                engine.snapshot(score);
+            }
+        }
+    }
+}
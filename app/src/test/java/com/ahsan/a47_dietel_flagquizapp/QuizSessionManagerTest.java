@@ -0,0 +1,166 @@
+package com.ahsan.a47_dietel_flagquizapp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link QuizSessionManager}, which run on the development machine (host).
+ */
+public class QuizSessionManagerTest {
+
+    private static final int REGIONS = 6;
+    private static final int FLAGS_PER_REGION = 40;
+    private static final int ALL_REGIONS = (1 << REGIONS) - 1;
+
+    private final FlagCatalog catalog = syntheticCatalog();
+
+    @Test
+    public void parallelSessions_loseNoScores() throws Exception {
+        final int sessionCount = 400;
+        final QuizSessionManager manager = new QuizSessionManager(catalog, sessionCount, 7);
+        final QuizScoreboard scoreboard = manager.getScoreboard();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // reads the totals while the sessions play - they may only ever grow
+        final AtomicBoolean playing = new AtomicBoolean(true);
+        Future<Boolean> reader = executor.submit(new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                long lastGuesses = 0;
+                while (playing.get()) {
+                    long guesses = scoreboard.getTotalGuesses();
+                    if (guesses < lastGuesses || scoreboard.getTotalCorrectAnswers() > scoreboard.getTotalGuesses())
+                        return false;
+                    lastGuesses = guesses;
+                }
+                return true;
+            }
+        });
+
+        // every task starts and plays one session, counting its own guesses to check the scoreboard against
+        List<Future<int[]>> results = new ArrayList<>();
+        for (int i = 0; i < sessionCount; i++) {
+            results.add(executor.submit(new Callable<int[]>() {
+                @Override
+                public int[] call() {
+                    QuizSession session = manager.startSession("Player");
+                    return play(session, new Random(session.getId()));
+                }
+            }));
+        }
+
+        long correct = 0;
+        long guesses = 0;
+        boolean[] seen = new boolean[sessionCount];
+        for (Future<int[]> result : results) {
+            int[] expected = result.get(); // {id, correct answers, guesses, quizzes}
+            int id = expected[0];
+            assertFalse("session id handed out twice", seen[id]);
+            seen[id] = true;
+            assertEquals(expected[1], scoreboard.getCorrectAnswers(id));
+            assertEquals(expected[2], scoreboard.getTotalGuesses(id));
+            assertEquals(expected[3], scoreboard.getCompletedQuizzes(id));
+            correct += expected[1];
+            guesses += expected[2];
+        }
+        playing.set(false);
+        assertTrue("totals went backwards", reader.get());
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(sessionCount, manager.getSessionCount());
+        assertEquals(correct, scoreboard.getTotalCorrectAnswers());
+        assertEquals(guesses, scoreboard.getTotalGuesses());
+    }
+
+    @Test
+    public void standings_rankByCorrectAnswersThenGuesses() throws Exception {
+        QuizSessionManager manager = new QuizSessionManager(catalog, 4, 1);
+        QuizSession[] sessions = new QuizSession[4];
+        for (int i = 0; i < sessions.length; i++) {
+            sessions[i] = manager.startSession("Player " + i);
+            sessions[i].start(ALL_REGIONS, 4, 10);
+        }
+
+        answer(sessions[0], 2, 0); // 2 correct in 2 guesses
+        answer(sessions[1], 3, 2); // 3 correct in 5 guesses
+        answer(sessions[2], 3, 1); // 3 correct in 4 guesses
+        // sessions[3] didn't guess yet
+
+        assertArrayEquals(new int[]{2, 1, 0, 3}, manager.getStandings());
+    }
+
+    @Test
+    public void fullTournament_rejectsPlayers() throws Exception {
+        QuizSessionManager manager = new QuizSessionManager(catalog, 2, 1);
+        manager.startSession("Ann");
+        manager.startSession("Ben");
+        try {
+            manager.startSession("Cy");
+            fail("third player in a tournament of two");
+        } catch (IllegalStateException expected) {
+        }
+        assertEquals(2, manager.getSessionCount());
+        assertEquals("Ben", manager.getSession(1).getPlayer());
+    }
+
+    // plays 5 quizzes of 10 questions, guessing wrong now and then - returns {id, correct answers, guesses, quizzes}
+    private static int[] play(QuizSession session, Random random) {
+        int correct = 0;
+        int guesses = 0;
+        int quizzes = 0;
+        for (int quiz = 0; quiz < 5; quiz++) {
+            session.start(ALL_REGIONS, 4, 10);
+            while (session.hasNextQuestion()) {
+                int answer = session.nextQuestion();
+                QuizEngine engine = session.getEngine();
+                for (int choice = 0; choice < engine.getUsedChoiceCount(); choice++) {
+                    int flagId = engine.getChoice(choice);
+                    if (flagId != answer && random.nextBoolean()) {
+                        assertEquals(QuizEngine.GUESS_INCORRECT, session.submitGuess(flagId));
+                        ++guesses;
+                    }
+                }
+                int result = session.submitGuess(answer);
+                ++guesses;
+                ++correct;
+                if (result == QuizEngine.QUIZ_COMPLETE)
+                    ++quizzes;
+            }
+            assertEquals(QuizEngine.GUESS_IGNORED, session.submitGuess(0)); // after the quiz - not counted
+        }
+        return new int[]{session.getId(), correct, guesses, quizzes};
+    }
+
+    // answers questions correctly, after wrongGuesses wrong guesses on the first one
+    private static void answer(QuizSession session, int questions, int wrongGuesses) {
+        for (int question = 0; question < questions; question++) {
+            int answer = session.nextQuestion();
+            for (int wrong = 0; question == 0 && wrong < wrongGuesses; wrong++)
+                session.submitGuess(answer == 0 ? 1 : 0);
+            session.submitGuess(answer);
+        }
+    }
+
+    private static FlagCatalog syntheticCatalog() {
+        String[] regions = new String[REGIONS];
+        String[][] files = new String[REGIONS][FLAGS_PER_REGION];
+        for (int region = 0; region < REGIONS; region++) {
+            regions[region] = "Region" + region;
+            for (int flag = 0; flag < FLAGS_PER_REGION; flag++)
+                files[region][flag] = "Region" + region + "-Country" + flag + ".png";
+        }
+        return FlagCatalog.fromAssetListing(regions, files);
+    }
+}
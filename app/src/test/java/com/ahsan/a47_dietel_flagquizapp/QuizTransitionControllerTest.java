@@ -0,0 +1,169 @@
+package com.ahsan.a47_dietel_flagquizapp;
+
+import java.util.concurrent.TimeUnit;
+
+import android.animation.ValueAnimator;
+import android.view.View;
+import android.view.View.MeasureSpec;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.util.Scheduler;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link QuizTransitionController}, which run on the development machine (host) with Robolectric.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class QuizTransitionControllerTest {
+
+    private static final long PAUSE = 2000;
+    private static final long ANIMATION = QuizTransitionController.DURATION + 100; // a few frames' slack to end it
+    // Robolectric's scheduler and shadows allocate for every task and frame, so this only catches real regressions,
+    // e.g. Animators, listeners or Runnables created for every question again
+    private static final long ALLOCATION_BUDGET_BYTES = 16 * 1024; // per question
+
+    private final Scheduler scheduler = Robolectric.getForegroundThreadScheduler();
+    private View view;
+    private QuizTransitionController transitions;
+    private int hidden; // Listener calls so far
+    private int revealed;
+
+    @Before
+    public void setUp() throws Exception {
+        view = new View(RuntimeEnvironment.application);
+        view.measure(MeasureSpec.makeMeasureSpec(800, MeasureSpec.EXACTLY), MeasureSpec.makeMeasureSpec(600, MeasureSpec.EXACTLY));
+        view.layout(0, 0, 800, 600);
+        transitions = new QuizTransitionController(view, new QuizTransitionController.Listener() {
+            @Override
+            public void onHidden() {
+                ++hidden;
+            }
+
+            @Override
+            public void onRevealed() {
+                ++revealed;
+            }
+        }, null);
+    }
+
+    @Test
+    public void transition_pausesHidesThenReveals() throws Exception {
+        transitions.next(PAUSE);
+        assertEquals(QuizTransitionController.PAUSED, transitions.getState());
+        advance(PAUSE - 1);
+        assertEquals(0, hidden); // still showing the answer
+
+        advance(1 + ANIMATION);
+        assertEquals(QuizTransitionController.HIDDEN, transitions.getState());
+        assertEquals(1, hidden);
+        assertTrue(view.getClipToOutline()); // stays hidden until the next flag is revealed
+
+        transitions.reveal(true);
+        advance(ANIMATION);
+        assertEquals(QuizTransitionController.IDLE, transitions.getState());
+        assertEquals(1, revealed);
+        assertFalse(view.getClipToOutline());
+    }
+
+    @Test
+    public void lateFlag_doesNotStopTheNextQuestion() throws Exception {
+        transitions.next(PAUSE);
+        transitions.reveal(true); // the answered question's flag finished decoding during the pause
+        assertEquals(QuizTransitionController.PAUSED, transitions.getState());
+        runUntil(QuizTransitionController.HIDING);
+        transitions.reveal(false); // ... or while it's hiding
+        advance(PAUSE + ANIMATION);
+        assertEquals(1, hidden);
+        assertEquals(0, revealed);
+
+        transitions.reveal(false); // the next flag, without animation
+        assertEquals(QuizTransitionController.IDLE, transitions.getState());
+        assertEquals(1, revealed);
+        assertFalse(view.getClipToOutline());
+    }
+
+    @Test
+    public void noPause_hidesRightAway() throws Exception {
+        transitions.next(0);
+        assertEquals(1, hidden);
+        assertEquals(QuizTransitionController.IDLE, transitions.getState());
+        assertFalse(transitions.getAnimator().isStarted());
+    }
+
+    @Test
+    public void cancel_dropsStaleCallbacks() throws Exception {
+        transitions.next(PAUSE); // cancelled during the pause
+        transitions.cancel();
+        advance(PAUSE + ANIMATION);
+
+        transitions.next(PAUSE); // cancelled while hiding
+        runUntil(QuizTransitionController.HIDING);
+        transitions.cancel();
+        assertFalse(view.getClipToOutline());
+        advance(ANIMATION);
+
+        transitions.reveal(true); // cancelled while revealing
+        transitions.cancel();
+        advance(ANIMATION);
+
+        assertEquals(0, hidden);
+        assertEquals(0, revealed);
+        assertEquals(QuizTransitionController.IDLE, transitions.getState());
+
+        // a second next replaces the first one's pause - the next flag is loaded once, not twice
+        transitions.next(PAUSE);
+        advance(PAUSE / 2);
+        transitions.next(PAUSE);
+        advance(2 * PAUSE + ANIMATION);
+        assertEquals(1, hidden);
+    }
+
+    @Test
+    public void questions_reuseOneAnimator() throws Exception {
+        ValueAnimator animator = transitions.getAnimator();
+        int listenerCount = animator.getListeners().size();
+        playQuestions(5); // warm up, so class loading and the first calls through Robolectric's shadows aren't counted
+
+        long allocated = QuizEngineTest.allocatedBytes();
+        playQuestions(50);
+        allocated = QuizEngineTest.allocatedBytes() - allocated;
+
+        assertEquals(55, hidden);
+        assertEquals(55, revealed);
+        assertSame(animator, transitions.getAnimator());
+        assertEquals(listenerCount, animator.getListeners().size()); // no listener added per question
+        if (allocated >= 0)
+            assertTrue("50 questions allocated " + allocated + " bytes", allocated < 50 * ALLOCATION_BUDGET_BYTES);
+    }
+
+    // runs questions full transitions, like answered questions followed by their next flags
+    private void playQuestions(int questions) {
+        for (int question = 0; question < questions; question++) {
+            transitions.next(PAUSE);
+            advance(PAUSE + ANIMATION);
+            transitions.reveal(true);
+            advance(ANIMATION);
+        }
+    }
+
+    private void advance(long millis) {
+        scheduler.advanceBy(millis, TimeUnit.MILLISECONDS);
+    }
+
+    // runs the main thread's tasks one at a time until the transition reaches state - Robolectric's Choreographer
+    // moves the frame time on by itself, so advancing the clock would run an animation to its end at once
+    private void runUntil(int state) {
+        while (transitions.getState() != state) {
+            assertTrue("no task left before state " + state, scheduler.size() > 0);
+            scheduler.runOneTask();
+        }
+    }
+}
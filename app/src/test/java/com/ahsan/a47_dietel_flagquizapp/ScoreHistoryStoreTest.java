@@ -0,0 +1,212 @@
+package com.ahsan.a47_dietel_flagquizapp;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executor;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link ScoreHistoryStore}, which run on the development machine (host).
+ */
+public class ScoreHistoryStoreTest {
+
+    // runs the background writes right away, so the files are up to date when commit returns
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private static final int CATALOG = 0x2A; // fingerprint of the flags played
+
+    private File directory;
+    private int batches; // tasks run by counting
+
+    // runs the background writes right away like DIRECT, counting them
+    private final Executor counting = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            ++batches;
+            command.run();
+        }
+    };
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("score-history").toFile();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        File[] files = directory.listFiles();
+        if (files != null)
+            for (File file : files)
+                file.delete();
+        directory.delete();
+    }
+
+    // plays quizzes of 10 questions, each answered wrong once every third question - every other one timed
+    private static void playQuizzes(ScoreHistoryStore store, int quizzes) {
+        for (int quiz = 0; quiz < quizzes; quiz++) {
+            int guesses = 0;
+            for (int question = 0; question < 10; question++) {
+                int flagId = (quiz * 10 + question) % 234;
+                if (question % 3 == 0) {
+                    store.recordGuess(flagId, false, 900);
+                    ++guesses;
+                }
+                store.recordGuess(flagId, true, 1500);
+                ++guesses;
+            }
+            if (quiz % 2 == 1)
+                store.recordTimedQuiz(10, 5000 + quiz);
+            store.recordQuiz(10, guesses);
+        }
+    }
+
+    private static void assertSameStats(ScoreStats expected, ScoreStats actual) {
+        assertEquals(expected.getQuizCount(), actual.getQuizCount());
+        assertEquals(expected.getAveragePercent(), actual.getAveragePercent(), 1e-9);
+        assertEquals(expected.getBestPercent(), actual.getBestPercent(), 1e-9);
+        assertEquals(expected.getGuessCount(), actual.getGuessCount());
+        assertEquals(expected.getCorrectCount(), actual.getCorrectCount());
+        assertEquals(expected.getCurrentStreak(), actual.getCurrentStreak());
+        assertEquals(expected.getBestStreak(), actual.getBestStreak());
+        assertEquals(expected.getAverageReactionMillis(), actual.getAverageReactionMillis(), 1e-9);
+        assertEquals(expected.getTimedQuizCount(), actual.getTimedQuizCount());
+        assertEquals(expected.getBestTimedPoints(), actual.getBestTimedPoints());
+        assertArrayEquals(expected.getReactionTimes().getCounts(), actual.getReactionTimes().getCounts());
+        for (int flagId = 0; flagId < 234; flagId++) {
+            assertEquals(expected.getFlagGuesses(flagId), actual.getFlagGuesses(flagId));
+            assertEquals(expected.getFlagCorrect(flagId), actual.getFlagCorrect(flagId));
+        }
+    }
+
+    @Test
+    public void totals_areUpdatedWithEveryRecord() throws Exception {
+        ScoreHistoryStore store = ScoreHistoryStore.open(directory, CATALOG, DIRECT);
+        playQuizzes(store, 3);
+        ScoreStats stats = store.getStats();
+        store.close();
+
+        assertEquals(3, stats.getQuizCount());
+        assertEquals(42, stats.getGuessCount());
+        assertEquals(30, stats.getCorrectCount());
+        assertEquals(100.0 * 30 / 42, stats.getAveragePercent(), 1e-9);
+        assertEquals(3, stats.getBestStreak()); // two correct questions, then the third starts with a wrong guess
+        assertEquals(0.5, stats.getFlagAccuracy(0), 1e-9);
+        assertEquals(1.0, stats.getFlagAccuracy(1), 1e-9);
+        assertEquals(-1, stats.getFlagAccuracy(200), 1e-9);
+        assertEquals(1, stats.getTimedQuizCount());
+        assertEquals(5001, stats.getBestTimedPoints());
+        assertEquals(30, stats.getReactionTimes().count()); // correct guesses only
+        assertEquals(42 * ScoreHistoryStore.RECORD_SIZE + 5 * ScoreHistoryStore.RECORD_SIZE, // guesses, quizzes, the timed quiz and the catalog
+                new File(directory, ScoreHistoryStore.LOG_FILE).length());
+    }
+
+    @Test
+    public void reopen_restoresTotalsFromStatsFile() throws Exception {
+        ScoreHistoryStore store = ScoreHistoryStore.open(directory, CATALOG, DIRECT);
+        playQuizzes(store, 50);
+        store.close();
+
+        ScoreHistoryStore reopened = ScoreHistoryStore.open(directory, CATALOG, DIRECT);
+        assertSameStats(store.getStats(), reopened.getStats());
+        reopened.close();
+    }
+
+    @Test
+    public void reopen_replaysRecordsNewerThanStatsFile() throws Exception {
+        File statsFile = new File(directory, ScoreHistoryStore.STATS_FILE);
+        File oldStats = new File(directory, "old-stats");
+
+        ScoreHistoryStore store = ScoreHistoryStore.open(directory, CATALOG, DIRECT);
+        playQuizzes(store, 20);
+        Files.copy(statsFile.toPath(), oldStats.toPath());
+        playQuizzes(store, 20);
+        store.close();
+
+        // as if the app died after writing the log but before saving the stats
+        Files.copy(oldStats.toPath(), statsFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        ScoreHistoryStore reopened = ScoreHistoryStore.open(directory, CATALOG, DIRECT);
+        assertSameStats(store.getStats(), reopened.getStats());
+        reopened.close();
+    }
+
+    @Test
+    public void reopen_rebuildsTotalsWithoutStatsFile() throws Exception {
+        ScoreHistoryStore store = ScoreHistoryStore.open(directory, CATALOG, DIRECT);
+        playQuizzes(store, 30);
+        store.close();
+
+        assertTrue(new File(directory, ScoreHistoryStore.STATS_FILE).delete());
+        ScoreHistoryStore reopened = ScoreHistoryStore.open(directory, CATALOG, DIRECT);
+        assertSameStats(store.getStats(), reopened.getStats());
+        reopened.close();
+    }
+
+    @Test
+    public void reopen_dropsRecordCutOffByCrash() throws Exception {
+        ScoreHistoryStore store = ScoreHistoryStore.open(directory, CATALOG, DIRECT);
+        playQuizzes(store, 2);
+        store.close();
+
+        File logFile = new File(directory, ScoreHistoryStore.LOG_FILE);
+        long length = logFile.length();
+        try (FileOutputStream out = new FileOutputStream(logFile, true)) {
+            out.write(new byte[]{ScoreHistoryStore.TYPE_GUESS, 1, 0}); // start of a record that was never finished
+        }
+        assertTrue(new File(directory, ScoreHistoryStore.STATS_FILE).delete());
+
+        ScoreHistoryStore reopened = ScoreHistoryStore.open(directory, CATALOG, DIRECT);
+        assertSameStats(store.getStats(), reopened.getStats());
+        assertEquals(length, logFile.length());
+        reopened.close();
+    }
+
+    @Test
+    public void otherCatalog_dropsPerFlagTotals() throws Exception {
+        ScoreHistoryStore store = ScoreHistoryStore.open(directory, CATALOG, DIRECT);
+        playQuizzes(store, 10);
+        store.close();
+
+        // an app update changed the flags, so the same ids mean other flags now
+        ScoreHistoryStore updated = ScoreHistoryStore.open(directory, CATALOG + 1, DIRECT);
+        ScoreStats stats = updated.getStats();
+        assertEquals(store.getStats().getQuizCount(), stats.getQuizCount());
+        assertEquals(store.getStats().getGuessCount(), stats.getGuessCount());
+        for (int flagId = 0; flagId < 234; flagId++)
+            assertEquals(0, stats.getFlagGuesses(flagId));
+        playQuizzes(updated, 1);
+        updated.close();
+
+        // replaying the whole log drops the per flag records from before the update too
+        assertTrue(new File(directory, ScoreHistoryStore.STATS_FILE).delete());
+        ScoreHistoryStore reopened = ScoreHistoryStore.open(directory, CATALOG + 1, DIRECT);
+        assertSameStats(updated.getStats(), reopened.getStats());
+        reopened.close();
+    }
+
+    @Test
+    public void failedWrite_stopsAppending() throws Exception {
+        ScoreHistoryStore store = ScoreHistoryStore.open(directory, CATALOG, counting);
+        playQuizzes(store, 1);
+        tearDown(); // the log stays open, but the stats file can't be saved any more
+        playQuizzes(store, 1);
+        assertNotNull(store.getWriteError());
+
+        int failed = batches;
+        playQuizzes(store, 3);
+        assertEquals(failed, batches); // nothing handed to the executor after the failure
+        assertEquals(5, store.getStats().getQuizCount()); // the totals in memory still count every quiz
+        store.close();
+    }
+}
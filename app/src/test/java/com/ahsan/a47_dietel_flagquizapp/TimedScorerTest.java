@@ -0,0 +1,89 @@
+package com.ahsan.a47_dietel_flagquizapp;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link TimedScorer}, which run on the development machine (host).
+ */
+public class TimedScorerTest {
+
+    private static final long SECOND = 1000000000L;
+    private static final long START = 5000 * SECOND; // System.nanoTime has an arbitrary origin
+
+    private final TimedScorer scorer = new TimedScorer(10 * SECOND);
+
+    @Test
+    public void fasterAnswers_scoreMore() throws Exception {
+        scorer.flagVisible(START);
+        assertEquals(TimedScorer.MAX_POINTS, scorer.correctAnswer(START));
+        assertFalse(scorer.isTiming());
+
+        scorer.flagVisible(START + 20 * SECOND);
+        assertEquals(550, scorer.correctAnswer(START + 25 * SECOND)); // half the time left
+
+        scorer.flagVisible(START + 40 * SECOND);
+        assertEquals(0, scorer.correctAnswer(START + 50 * SECOND)); // too late
+        assertEquals(0, scorer.correctAnswer(START + 50 * SECOND)); // already answered
+
+        assertEquals(1550, scorer.getPoints());
+        assertEquals(2, scorer.getReactionTimes().count());
+    }
+
+    @Test
+    public void remainingTime_countsDownFromTheVisibleFlag() throws Exception {
+        assertEquals(10 * SECOND, scorer.remainingNanos(START)); // flag not drawn yet
+
+        scorer.flagVisible(START);
+        assertEquals(7 * SECOND, scorer.remainingNanos(START + 3 * SECOND));
+        assertEquals(0, scorer.remainingNanos(START + 12 * SECOND));
+
+        scorer.timeOut();
+        assertFalse(scorer.isTiming());
+        assertEquals(0, scorer.correctAnswer(START + 12 * SECOND));
+    }
+
+    @Test
+    public void savedState_keepsPointsAndReactionTimes() throws Exception {
+        scorer.flagVisible(START);
+        scorer.correctAnswer(START + SECOND);
+
+        TimedScorer restored = new TimedScorer(10 * SECOND);
+        assertTrue(restored.restoreState(scorer.saveState()));
+        assertEquals(scorer.getPoints(), restored.getPoints());
+        assertEquals(1, restored.getReactionTimes().count());
+        assertFalse(restored.restoreState(new int[3]));
+
+        restored.reset();
+        assertEquals(0, restored.getPoints());
+        assertEquals(0, restored.getReactionTimes().count());
+    }
+
+    @Test
+    public void reactionTimes_areBucketedAndSavedCompactly() throws Exception {
+        ReactionTimeHistogram histogram = new ReactionTimeHistogram();
+        assertEquals(-1, histogram.percentileMillis(50));
+        for (int millis : new int[]{0, 63, 64, 127, 128, 300, 400, 500, 2000})
+            histogram.add(millis);
+        histogram.add(Long.MAX_VALUE);
+
+        assertEquals(2, histogram.getCount(0));
+        assertEquals(2, histogram.getCount(1));
+        assertEquals(1, histogram.getCount(ReactionTimeHistogram.BUCKETS - 1));
+        assertEquals(255, histogram.percentileMillis(50));
+        assertEquals(511, histogram.percentileMillis(80)); // 300, 400 and 500 ms share the 256..511 bucket
+        assertEquals(2047, histogram.percentileMillis(90));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        histogram.write(new DataOutputStream(bytes));
+        assertEquals(1 + ReactionTimeHistogram.BUCKETS, bytes.size()); // one byte per bucket up to the last used one
+        ReactionTimeHistogram read = ReactionTimeHistogram.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertArrayEquals(histogram.getCounts(), read.getCounts());
+    }
+}
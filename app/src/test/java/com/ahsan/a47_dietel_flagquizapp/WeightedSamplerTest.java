@@ -0,0 +1,117 @@
+package com.ahsan.a47_dietel_flagquizapp;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link WeightedSampler} and {@link AdaptiveQuestionPicker}, which run on the development machine (host).
+ */
+public class WeightedSamplerTest {
+
+    @Test
+    public void sample_followsWeights() throws Exception {
+        WeightedSampler sampler = new WeightedSampler(5);
+        sampler.setAll(new long[]{1, 0, 2, 0, 7});
+        assertEquals(10, sampler.total());
+
+        int[] counts = new int[5];
+        Random random = new Random(3);
+        for (int draw = 0; draw < 100000; draw++)
+            ++counts[sampler.sample(random)];
+
+        assertEquals(0, counts[1]);
+        assertEquals(0, counts[3]);
+        assertEquals(10000, counts[0], 600);
+        assertEquals(20000, counts[2], 800);
+        assertEquals(70000, counts[4], 1000);
+    }
+
+    @Test
+    public void set_matchesSetAll() throws Exception {
+        Random random = new Random(5);
+        long[] weights = new long[37];
+        WeightedSampler incremental = new WeightedSampler(weights.length);
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = random.nextInt(100);
+            incremental.set(i, weights[i]);
+        }
+        WeightedSampler bulk = new WeightedSampler(weights.length);
+        bulk.setAll(weights);
+
+        // same weights give the same draws
+        Random first = new Random(9);
+        Random second = new Random(9);
+        for (int draw = 0; draw < 1000; draw++)
+            assertEquals(incremental.sample(first), bulk.sample(second));
+
+        incremental.set(4, 0);
+        bulk.set(4, 0);
+        assertEquals(bulk.total(), incremental.total());
+    }
+
+    @Test
+    public void sample_withoutWeightsReturnsNothing() throws Exception {
+        WeightedSampler sampler = new WeightedSampler(3);
+        assertEquals(-1, sampler.sample(new Random(1)));
+    }
+
+    @Test
+    public void adaptivePicker_prefersMissedFlags() throws Exception {
+        FlagCatalog catalog = QuizEngineTest.syntheticCatalog(2, 50);
+        int[] ids = new int[catalog.size()];
+        int count = catalog.selectFlags(0x3, ids);
+
+        AdaptiveQuestionPicker picker = new AdaptiveQuestionPicker(catalog.size(), null, 0);
+        picker.setEnabled(ids, count);
+        for (int flagId = 0; flagId < 10; flagId++)
+            for (int guess = 0; guess < 3; guess++)
+                picker.onGuess(flagId, false); // the first 10 flags were missed three times...
+        for (int flagId = 10; flagId < catalog.size(); flagId++)
+            picker.onGuess(flagId, true); // ...the others known
+
+        int missed = 0;
+        Random random = new Random(7);
+        for (int round = 0; round < 200; round++) {
+            picker.startQuiz(0);
+            for (int question = 0; question < 10; question++)
+                if (picker.next(random) < 10)
+                    ++missed;
+        }
+        // uniform picks would give 10% missed flags - with a weight of 820 against 400 for the known ones it's about 18%
+        assertTrue(missed > 200 * 10 * 0.15);
+    }
+
+    @Test
+    public void adaptivePicker_coolsDownAskedFlags() throws Exception {
+        AdaptiveQuestionPicker picker = new AdaptiveQuestionPicker(4, null, 0);
+        picker.setEnabled(new int[]{0, 1, 2, 3}, 4);
+        long normal = picker.weight(2);
+
+        picker.onAsked(2, 1000);
+        assertEquals(normal / AdaptiveQuestionPicker.COOLDOWN_DIVISOR, picker.weight(2));
+
+        picker.startQuiz(1000 + AdaptiveQuestionPicker.COOLDOWN_MILLIS);
+        assertEquals(normal, picker.weight(2));
+    }
+
+    @Test
+    public void adaptivePicker_drawsEveryFlagOncePerQuiz() throws Exception {
+        AdaptiveQuestionPicker picker = new AdaptiveQuestionPicker(5, null, 0);
+        picker.setEnabled(new int[]{0, 1, 2, 3, 4}, 5);
+        Random random = new Random(3);
+
+        for (int quiz = 0; quiz < 2; quiz++) {
+            picker.startQuiz(0);
+            boolean[] drawn = new boolean[5];
+            for (int question = 0; question < 5; question++) {
+                int flagId = picker.next(random);
+                assertFalse(drawn[flagId]);
+                drawn[flagId] = true;
+            }
+            assertEquals(-1, picker.next(random));
+        }
+    }
+}
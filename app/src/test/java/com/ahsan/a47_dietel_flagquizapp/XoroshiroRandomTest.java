@@ -0,0 +1,80 @@
+package com.ahsan.a47_dietel_flagquizapp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link XoroshiroRandom}, which run on the development machine (host).
+ */
+public class XoroshiroRandomTest {
+
+    @Test
+    public void sameSeed_givesSameSequence() throws Exception {
+        XoroshiroRandom first = new XoroshiroRandom(2017);
+        XoroshiroRandom second = new XoroshiroRandom(2017);
+        for (int i = 0; i < 1000; i++)
+            assertEquals(first.nextInt(234), second.nextInt(234));
+
+        second.setSeed(2017); // restarts the sequence
+        XoroshiroRandom third = new XoroshiroRandom(2017);
+        assertEquals(third.nextLong(), second.nextLong());
+    }
+
+    @Test
+    public void savedState_continuesTheSequence() throws Exception {
+        XoroshiroRandom original = new XoroshiroRandom(99);
+        original.nextLong();
+        XoroshiroRandom restored = new XoroshiroRandom();
+        restored.setState(original.getState());
+        for (int i = 0; i < 100; i++)
+            assertEquals(original.nextInt(), restored.nextInt());
+    }
+
+    @Test
+    public void split_givesIndependentReproducibleGenerators() throws Exception {
+        XoroshiroRandom parent = new XoroshiroRandom(1);
+        XoroshiroRandom child = parent.split();
+        assertNotEquals(parent.nextLong(), child.nextLong());
+
+        XoroshiroRandom sameParent = new XoroshiroRandom(1);
+        XoroshiroRandom sameChild = sameParent.split();
+        sameChild.nextLong();
+        assertEquals(child.nextLong(), sameChild.nextLong());
+    }
+
+    @Test
+    public void nextInt_coversBoundEvenly() throws Exception {
+        XoroshiroRandom random = new XoroshiroRandom(5);
+        int[] counts = new int[10];
+        for (int i = 0; i < 100000; i++)
+            ++counts[random.nextInt(10)];
+        for (int count : counts)
+            assertEquals(10000, count, 500);
+    }
+
+    @Test
+    public void dailySeed_changesOncePerDay() throws Exception {
+        long day = 17456L * 24 * 60 * 60 * 1000; // midnight UTC
+        assertEquals(XoroshiroRandom.dailySeed(day), XoroshiroRandom.dailySeed(day + 23 * 60 * 60 * 1000));
+        assertNotEquals(XoroshiroRandom.dailySeed(day), XoroshiroRandom.dailySeed(day + 24 * 60 * 60 * 1000));
+    }
+
+    @Test
+    public void quizEngine_replaysTheSameQuizForTheSameSeed() throws Exception {
+        FlagCatalog catalog = QuizEngineTest.syntheticCatalog(6, 40);
+        QuizEngine first = new QuizEngine(catalog, new XoroshiroRandom(42));
+        QuizEngine second = new QuizEngine(catalog, new XoroshiroRandom(42));
+        for (QuizEngine engine : new QuizEngine[]{first, second}) {
+            engine.setRegions(0x3F);
+            engine.setChoiceCount(6);
+            engine.reset(10);
+        }
+
+        while (first.hasNextQuestion()) {
+            assertEquals(first.nextQuestion(), second.nextQuestion());
+            for (int i = 0; i < first.getUsedChoiceCount(); i++)
+                assertEquals(first.getChoice(i), second.getChoice(i));
+        }
+    }
+}
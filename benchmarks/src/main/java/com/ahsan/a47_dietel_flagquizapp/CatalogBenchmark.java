@@ -0,0 +1,69 @@
+// CatalogBenchmark.java
+// Building the list of flags: generated index vs. asset listing vs. the old file name list
+package com.ahsan.a47_dietel_flagquizapp;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CatalogBenchmark {
+
+    @Param({"234", "1000", "10000", "100000"})
+    public int flagCount;
+
+    private byte[] index; // flags.idx as the generateFlagCatalog task writes it
+    private String[][] listing;
+    private Set<String> regions;
+    private LegacyQuiz legacy;
+
+    @Setup
+    public void setUp() throws IOException {
+        listing = SyntheticFlags.listing(flagCount);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        FlagCatalog.fromAssetListing(SyntheticFlags.REGIONS, listing).write(bytes);
+        index = bytes.toByteArray();
+        regions = SyntheticFlags.allRegions();
+        legacy = new LegacyQuiz(listing, new Random(1));
+    }
+
+    // FlagRepository's startup path
+    @Benchmark
+    public FlagCatalog readIndex() throws IOException {
+        return FlagCatalog.read(new ByteArrayInputStream(index));
+    }
+
+    // FlagRepository's fallback when the index is missing
+    @Benchmark
+    public FlagCatalog fromAssetListing() {
+        return FlagCatalog.fromAssetListing(SyntheticFlags.REGIONS, listing);
+    }
+
+    // what resetQuiz rebuilt on every new quiz
+    @Benchmark
+    public List<String> legacyFileNameList() {
+        legacy.listFileNames(regions);
+        return legacy.fileNameList;
+    }
+}
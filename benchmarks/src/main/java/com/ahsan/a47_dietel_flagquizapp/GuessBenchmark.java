@@ -0,0 +1,89 @@
+// GuessBenchmark.java
+// Checking a guess and turning a flag into the country name shown on a Button
+package com.ahsan.a47_dietel_flagquizapp;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GuessBenchmark {
+
+    @Param({"234", "100000"})
+    public int flagCount;
+
+    private FlagCatalog catalog;
+    private QuizEngine engine;
+    private LegacyQuiz legacy;
+    private String[] buttonTexts; // a Button text per flag, a copy so equals has to compare the characters
+    private int wrongGuess; // id of a flag that isn't the current answer
+    private int next; // flag used by the next display name benchmark call
+
+    @Setup
+    public void setUp() {
+        catalog = SyntheticFlags.catalog(flagCount);
+        engine = new QuizEngine(catalog, new Random(1));
+        engine.setRegions(catalog.regionMask(SyntheticFlags.allRegions()));
+        engine.reset(SyntheticFlags.FLAGS_IN_QUIZ);
+        engine.nextQuestion();
+        wrongGuess = engine.getChoice(0) != engine.getCorrectAnswerId() ? engine.getChoice(0) : engine.getChoice(1);
+
+        legacy = new LegacyQuiz(SyntheticFlags.listing(flagCount), new Random(1));
+        buttonTexts = new String[catalog.size()];
+        for (int id = 0; id < buttonTexts.length; id++)
+            buttonTexts[id] = new String(catalog.displayName(id));
+        legacy.correctAnswer = catalog.fileName(engine.getCorrectAnswerId());
+    }
+
+    // answer comparison today: one int compare (the guess stays wrong, so the question stays open)
+    @Benchmark
+    public int engineGuess() {
+        return engine.submitGuess(wrongGuess);
+    }
+
+    // the old guess Button listener: getCountryName of the answer, then String.equals with the Button text
+    @Benchmark
+    public boolean legacyGuess() {
+        return legacy.guess(buttonTexts[wrongGuess]);
+    }
+
+    // display names today: precomputed when the catalog is built
+    @Benchmark
+    public String catalogDisplayName() {
+        if (++next == catalog.size())
+            next = 0;
+        return catalog.displayName(next);
+    }
+
+    // the parse FlagCatalog.fromAssetListing still does once per flag
+    @Benchmark
+    public String parseDisplayName() {
+        if (++next == catalog.size())
+            next = 0;
+        return FlagCatalog.displayName(catalog.fileName(next));
+    }
+
+    // the old getCountryName, including the log message it built on every call
+    @Benchmark
+    public String legacyGetCountryName() {
+        if (++next == catalog.size())
+            next = 0;
+        return legacy.getCountryName(catalog.fileName(next));
+    }
+}
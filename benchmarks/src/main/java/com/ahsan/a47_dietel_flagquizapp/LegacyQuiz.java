@@ -0,0 +1,111 @@
+// LegacyQuiz.java
+// The String based quiz logic MainActivityFragment used before QuizEngine, without the Views -
+// the baseline the benchmarks compare the current code against
+package com.ahsan.a47_dietel_flagquizapp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+final class LegacyQuiz {
+
+    private final String[][] assetListing; // what AssetManager.list returned for every region folder
+    private final Random random;
+
+    final List<String> fileNameList = new ArrayList<>(); // flag file names of the enabled regions
+    final List<String> quizCountriesList = new ArrayList<>(); // countries in the current quiz
+    final String[] buttonTexts = new String[QuizEngine.MAX_CHOICES]; // texts of the guess Buttons
+    String correctAnswer; // file name of the current question's flag
+    String assetPath; // asset the flag image was opened from
+    String lastLogMessage; // stands in for Log.i, which built its message on every call
+    int totalGuesses;
+    int correctAnswers;
+
+    LegacyQuiz(String[][] assetListing, Random random) {
+        this.assetListing = assetListing;
+        this.random = random;
+    }
+
+    // first half of resetQuiz: list the assets of every enabled region and strip the .png extensions
+    void listFileNames(Set<String> regionsSet) {
+        fileNameList.clear();
+        for (int region = 0; region < SyntheticFlags.REGIONS.length; region++) {
+            if (!regionsSet.contains(SyntheticFlags.REGIONS[region]))
+                continue;
+            for (String path : assetListing[region])
+                fileNameList.add(path.replace(".png", ""));
+        }
+    }
+
+    // resetQuiz: list the file names, then draw FLAGS_IN_QUIZ distinct ones, retrying on duplicates
+    void resetQuiz(Set<String> regionsSet) {
+        listFileNames(regionsSet);
+
+        correctAnswers = 0;
+        totalGuesses = 0;
+        quizCountriesList.clear();
+
+        int flagCounter = 1;
+        int numberOfFlags = fileNameList.size();
+        while (flagCounter <= SyntheticFlags.FLAGS_IN_QUIZ) {
+            int randomIndex = random.nextInt(numberOfFlags);
+            String filename = fileNameList.get(randomIndex);
+            if (!quizCountriesList.contains(filename)) {
+                quizCountriesList.add(filename);
+                ++flagCounter;
+            }
+        }
+    }
+
+    boolean hasNextFlag() {
+        return !quizCountriesList.isEmpty();
+    }
+
+    // queues one more random question without a full resetQuiz, so loadNextFlag can be measured on its own
+    void queueRandomFlag() {
+        quizCountriesList.add(fileNameList.get(random.nextInt(fileNameList.size())));
+    }
+
+    // loadNextFlag without the image decode: shuffle every file name, move the answer to the end,
+    // label the guess Buttons and put the correct answer on a random one
+    void loadNextFlag(int guessRows) {
+        String nextImage = quizCountriesList.remove(0);
+        correctAnswer = nextImage;
+        lastLogMessage = "Correct answer for this question is: " + correctAnswer;
+
+        String region = nextImage.substring(0, nextImage.indexOf('-'));
+        assetPath = region + "/" + nextImage + ".png";
+
+        Collections.shuffle(fileNameList);
+        int correct = fileNameList.indexOf(correctAnswer);
+        fileNameList.add(fileNameList.remove(correct));
+
+        for (int row = 0; row < guessRows; row++)
+            for (int column = 0; column < 2; column++)
+                buttonTexts[row * 2 + column] = getCountryName(fileNameList.get(row * 2 + column));
+
+        int row = random.nextInt(guessRows);
+        int column = random.nextInt(2);
+        buttonTexts[row * 2 + column] = getCountryName(correctAnswer);
+    }
+
+    // the guess Button listener's check: derive the answer's name again and compare it with the Button text
+    boolean guess(String guess) {
+        String answer = getCountryName(correctAnswer);
+        ++totalGuesses;
+        if (guess.equals(answer)) {
+            ++correctAnswers;
+            return true;
+        }
+        return false;
+    }
+
+    // parses the country flag file name and returns the country name
+    String getCountryName(String name) {
+        String modifiedName = name.substring(name.indexOf('-') + 1).replace('_', ' ');
+        lastLogMessage = "Old name: " + name + ", and now new name is: " + modifiedName;
+        return modifiedName;
+    }
+}
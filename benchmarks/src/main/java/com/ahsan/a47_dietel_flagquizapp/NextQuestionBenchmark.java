@@ -0,0 +1,101 @@
+// NextQuestionBenchmark.java
+// Moving to the next question: picking the wrong answers and labelling the guess Buttons
+package com.ahsan.a47_dietel_flagquizapp;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class NextQuestionBenchmark {
+
+    @Param({"234", "1000", "10000", "100000"})
+    public int flagCount;
+
+    @Param({"4", "8"})
+    public int choices; // the NUMBER_OF_CHOICES preference
+
+    private FlagCatalog catalog;
+    private QuizEngine engine;
+    private QuizEngine marathon; // plays QuizEngine.ALL_FLAGS quizzes
+    private Random random;
+    private DistractorPicker picker;
+    private final int[] picks = new int[QuizEngine.MAX_CHOICES];
+    private final String[] buttonTexts = new String[QuizEngine.MAX_CHOICES];
+    private LegacyQuiz legacy;
+
+    @Setup
+    public void setUp() {
+        catalog = SyntheticFlags.catalog(flagCount);
+        random = new Random(1);
+        engine = new QuizEngine(catalog, random);
+        engine.setRegions(catalog.regionMask(SyntheticFlags.allRegions()));
+        engine.setChoiceCount(choices);
+        marathon = new QuizEngine(catalog, new Random(1));
+        marathon.setRegions(catalog.regionMask(SyntheticFlags.allRegions()));
+        marathon.setChoiceCount(choices);
+
+        int[] ids = new int[catalog.size()];
+        int count = catalog.selectFlags(catalog.regionMask(SyntheticFlags.allRegions()), ids);
+        picker = new DistractorPicker(random, new DistractorPicker.AnyFlag(ids, count));
+
+        legacy = new LegacyQuiz(SyntheticFlags.listing(flagCount), new Random(1));
+        legacy.resetQuiz(SyntheticFlags.allRegions());
+    }
+
+    // MainActivityFragment.loadNextFlag today, minus the Views - a new quiz starts (cheaply) every FLAGS_IN_QUIZ questions
+    @Benchmark
+    public String[] engineNextQuestion() {
+        if (!engine.hasNextQuestion())
+            engine.reset(SyntheticFlags.FLAGS_IN_QUIZ);
+        engine.nextQuestion();
+        for (int i = 0; i < engine.getUsedChoiceCount(); i++)
+            buttonTexts[i] = catalog.displayName(engine.getChoice(i));
+        return buttonTexts;
+    }
+
+    // a question of a marathon over all flagCount flags, with the flags the app prefetches - should cost the same as
+    // engineNextQuestion whatever flagCount is, since the flags are drawn one question at a time
+    @Benchmark
+    public String[] marathonNextQuestion() {
+        if (!marathon.hasNextQuestion())
+            marathon.reset(QuizEngine.ALL_FLAGS);
+        marathon.nextQuestion();
+        marathon.getUpcomingFlag(3);
+        for (int i = 0; i < marathon.getUsedChoiceCount(); i++)
+            buttonTexts[i] = catalog.displayName(marathon.getChoice(i));
+        return buttonTexts;
+    }
+
+    // the wrong answers alone
+    @Benchmark
+    public int[] distractorPicker() {
+        picker.pick(random.nextInt(catalog.size()), choices - 1, picks);
+        return picks;
+    }
+
+    // the old loadNextFlag: shuffle of every file name, indexOf, getCountryName per Button
+    @Benchmark
+    public String[] legacyLoadNextFlag() {
+        if (!legacy.hasNextFlag())
+            legacy.queueRandomFlag();
+        legacy.loadNextFlag(choices / 2);
+        return legacy.buttonTexts;
+    }
+}
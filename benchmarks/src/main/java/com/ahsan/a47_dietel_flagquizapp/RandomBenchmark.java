@@ -0,0 +1,85 @@
+// RandomBenchmark.java
+// The random-number generators the quiz could use: SecureRandom (the old one), Random and XoroshiroRandom
+package com.ahsan.a47_dietel_flagquizapp;
+
+import java.security.SecureRandom;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RandomBenchmark {
+
+    @Param({"234", "100000"})
+    public int flagCount;
+
+    private SecureRandom secureRandom;
+    private Random random;
+    private XoroshiroRandom xoroshiroRandom;
+    private QuizEngine secureEngine;
+    private QuizEngine xoroshiroEngine;
+
+    @Setup
+    public void setUp() {
+        secureRandom = new SecureRandom();
+        random = new Random(1);
+        xoroshiroRandom = new XoroshiroRandom(1);
+
+        FlagCatalog catalog = SyntheticFlags.catalog(flagCount);
+        secureEngine = new QuizEngine(catalog, secureRandom);
+        xoroshiroEngine = new QuizEngine(catalog, xoroshiroRandom);
+        for (QuizEngine engine : new QuizEngine[]{secureEngine, xoroshiroEngine})
+            engine.setRegions(catalog.regionMask(SyntheticFlags.allRegions()));
+    }
+
+    // one draw, as QuestionSampler and DistractorPicker make them
+    @Benchmark
+    public int secureRandomNextInt() {
+        return secureRandom.nextInt(flagCount);
+    }
+
+    @Benchmark
+    public int randomNextInt() {
+        return random.nextInt(flagCount);
+    }
+
+    @Benchmark
+    public int xoroshiroNextInt() {
+        return xoroshiroRandom.nextInt(flagCount);
+    }
+
+    // a whole quiz: FLAGS_IN_QUIZ flags plus the answer choices of every question
+    @Benchmark
+    public int secureRandomQuiz() {
+        return playQuiz(secureEngine);
+    }
+
+    @Benchmark
+    public int xoroshiroQuiz() {
+        return playQuiz(xoroshiroEngine);
+    }
+
+    private static int playQuiz(QuizEngine engine) {
+        engine.reset(SyntheticFlags.FLAGS_IN_QUIZ);
+        int sum = 0;
+        while (engine.hasNextQuestion())
+            sum += engine.nextQuestion();
+        return sum;
+    }
+}
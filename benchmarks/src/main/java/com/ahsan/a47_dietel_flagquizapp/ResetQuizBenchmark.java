@@ -0,0 +1,75 @@
+// ResetQuizBenchmark.java
+// Starting a quiz: choosing FLAGS_IN_QUIZ distinct flags of the enabled regions
+package com.ahsan.a47_dietel_flagquizapp;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ResetQuizBenchmark {
+
+    @Param({"234", "1000", "10000", "100000"})
+    public int flagCount;
+
+    private FlagCatalog catalog;
+    private Set<String> regions;
+    private QuizEngine engine;
+    private QuestionSampler sampler;
+    private int[] pool; // every flag id
+    private final int[] quizFlags = new int[SyntheticFlags.FLAGS_IN_QUIZ];
+    private LegacyQuiz legacy;
+
+    @Setup
+    public void setUp() {
+        // both sides use java.util.Random so only the algorithms differ, not the generators
+        catalog = SyntheticFlags.catalog(flagCount);
+        regions = SyntheticFlags.allRegions();
+        engine = new QuizEngine(catalog, new Random(1));
+        sampler = new QuestionSampler(new Random(1));
+        pool = new int[catalog.size()];
+        for (int id = 0; id < pool.length; id++)
+            pool[id] = id;
+        legacy = new LegacyQuiz(SyntheticFlags.listing(flagCount), new Random(1));
+    }
+
+    // MainActivityFragment.resetQuiz today, including the region preference lookup
+    @Benchmark
+    public QuizEngine engineReset() {
+        engine.setRegions(catalog.regionMask(regions));
+        engine.reset(SyntheticFlags.FLAGS_IN_QUIZ);
+        return engine;
+    }
+
+    // the partial Fisher-Yates shuffle alone
+    @Benchmark
+    public int[] questionSampler() {
+        sampler.sample(pool, pool.length, SyntheticFlags.FLAGS_IN_QUIZ, quizFlags);
+        return quizFlags;
+    }
+
+    // the old resetQuiz: file name list, then random picks checked with List.contains
+    @Benchmark
+    public List<String> legacyResetQuiz() {
+        legacy.resetQuiz(regions);
+        return legacy.quizCountriesList;
+    }
+}
@@ -0,0 +1,39 @@
+// SyntheticFlags.java
+// Flag listings and catalogs of any size, named like the real assets (Region-Country_Name.png)
+package com.ahsan.a47_dietel_flagquizapp;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+final class SyntheticFlags {
+
+    // the region folders of app/src/main/assets
+    static final String[] REGIONS = {"Africa", "Asia", "Europe", "North_America", "Oceania", "South_America"};
+
+    static final int FLAGS_IN_QUIZ = 10; // default of the QUIZ_LENGTH preference
+
+    private SyntheticFlags() {
+    }
+
+    // flagCount file names (with .png extension) spread evenly over the regions, as AssetManager.list returns them
+    static String[][] listing(int flagCount) {
+        String[][] files = new String[REGIONS.length][];
+        for (int region = 0; region < REGIONS.length; region++) {
+            int count = flagCount / REGIONS.length + (region < flagCount % REGIONS.length ? 1 : 0);
+            files[region] = new String[count];
+            for (int flag = 0; flag < count; flag++)
+                files[region][flag] = REGIONS[region] + "-Country_" + flag + ".png";
+        }
+        return files;
+    }
+
+    static FlagCatalog catalog(int flagCount) {
+        return FlagCatalog.fromAssetListing(REGIONS, listing(flagCount));
+    }
+
+    // the REGIONS preference with every region enabled
+    static Set<String> allRegions() {
+        return new HashSet<>(Arrays.asList(REGIONS));
+    }
+}
@@ -0,0 +1,172 @@
+// QuizFormat.java
+// Encodings of generated quizzes: compact binary records, or CSV with the country names for printing
+package com.ahsan.a47_dietel_flagquizapp;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public abstract class QuizFormat {
+
+    // writes what comes before the first quiz
+    abstract void writeHeader(OutputStream out, QuizGenerator generator, long quizCount) throws IOException;
+
+    // appends quiz number quizNumber (0-based): answers[q] is the flag id asked by question q,
+    // choices[q * generator.getChoices() + c] its choice number c - called by many threads at once, each with its own buffer
+    abstract void appendQuiz(Buffer out, long quizNumber, int[] answers, int[] choices, QuizGenerator generator);
+
+    // "binary" or "csv"
+    public static QuizFormat forName(String name, FlagCatalog catalog) {
+        if (name.equals("binary"))
+            return new Binary();
+        if (name.equals("csv"))
+            return new Csv(catalog);
+        throw new IllegalArgumentException("Unknown quiz format " + name + " - use binary or csv");
+    }
+
+
+
+
+
+    // header (big endian): int MAGIC, int VERSION, int catalog size, int questions per quiz, int choices per question,
+    // long seed, long number of quizzes. Then every question of every quiz, in order: byte position of the correct
+    // answer among the choices, followed by the choices as unsigned short flag ids - 9 bytes for 4 choices.
+    public static final class Binary extends QuizFormat {
+
+        static final int MAGIC = 0x464C4751; // "FLGQ"
+        static final int VERSION = 1;
+
+        @Override
+        void writeHeader(OutputStream out, QuizGenerator generator, long quizCount) throws IOException {
+            if (generator.getCatalog().size() > 0xFFFF)
+                throw new IOException("Flag ids don't fit the binary quiz format");
+
+            DataOutputStream data = new DataOutputStream(out);
+            data.writeInt(MAGIC);
+            data.writeInt(VERSION);
+            data.writeInt(generator.getCatalog().size());
+            data.writeInt(generator.getQuestions());
+            data.writeInt(generator.getChoices());
+            data.writeLong(generator.getSeed());
+            data.writeLong(quizCount);
+            data.flush();
+        }
+
+        @Override
+        void appendQuiz(Buffer out, long quizNumber, int[] answers, int[] choices, QuizGenerator generator) {
+            int choiceCount = generator.getChoices();
+            for (int question = 0; question < answers.length; question++) {
+                int first = question * choiceCount;
+                int correct = 0;
+                while (choices[first + correct] != answers[question])
+                    ++correct;
+
+                out.put((byte) correct);
+                for (int choice = 0; choice < choiceCount; choice++)
+                    out.putShort(choices[first + choice]);
+            }
+        }
+    }
+
+    // one line per question: quiz,question,answer,choice_1,...,choice_n - quiz and question numbers start at 1,
+    // the answer and the choices are country names, quoted where needed
+    public static final class Csv extends QuizFormat {
+
+        private final byte[][] names; // UTF-8 CSV field of every flag id, encoded once
+
+        public Csv(FlagCatalog catalog) {
+            names = new byte[catalog.size()][];
+            for (int id = 0; id < names.length; id++)
+                names[id] = field(catalog.displayName(id)).getBytes(StandardCharsets.UTF_8);
+        }
+
+        // quotes text if it contains a separator, quote or line break
+        private static String field(String text) {
+            if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0)
+                return text;
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+
+        @Override
+        void writeHeader(OutputStream out, QuizGenerator generator, long quizCount) throws IOException {
+            StringBuilder header = new StringBuilder("quiz,question,answer");
+            for (int choice = 1; choice <= generator.getChoices(); choice++)
+                header.append(",choice_").append(choice);
+            header.append('\n');
+            out.write(header.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        void appendQuiz(Buffer out, long quizNumber, int[] answers, int[] choices, QuizGenerator generator) {
+            int choiceCount = generator.getChoices();
+            for (int question = 0; question < answers.length; question++) {
+                out.putDecimal(quizNumber + 1);
+                out.put((byte) ',');
+                out.putDecimal(question + 1);
+                out.put((byte) ',');
+                out.put(names[answers[question]]);
+                for (int choice = 0; choice < choiceCount; choice++) {
+                    out.put((byte) ',');
+                    out.put(names[choices[question * choiceCount + choice]]);
+                }
+                out.put((byte) '\n');
+            }
+        }
+    }
+
+
+
+
+
+    // growable byte array one chunk of quizzes is encoded into - reused for every chunk of a thread
+    static final class Buffer {
+        private byte[] bytes = new byte[64 * 1024];
+        private int length;
+
+        void reset() {
+            length = 0;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, length);
+        }
+
+        void put(byte value) {
+            ensure(1);
+            bytes[length++] = value;
+        }
+
+        void put(byte[] values) {
+            ensure(values.length);
+            System.arraycopy(values, 0, bytes, length, values.length);
+            length += values.length;
+        }
+
+        // big endian, like DataOutputStream
+        void putShort(int value) {
+            ensure(2);
+            bytes[length++] = (byte) (value >>> 8);
+            bytes[length++] = (byte) value;
+        }
+
+        // value (not negative) as ASCII digits, without going through a String
+        void putDecimal(long value) {
+            int digits = 1;
+            for (long rest = value / 10; rest != 0; rest /= 10)
+                ++digits;
+            ensure(digits);
+            for (int i = length + digits - 1; i >= length; i--) {
+                bytes[i] = (byte) ('0' + value % 10);
+                value /= 10;
+            }
+            length += digits;
+        }
+
+        private void ensure(int more) {
+            if (length + more > bytes.length)
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + more));
+        }
+    }
+}
@@ -0,0 +1,110 @@
+// QuizGen.java
+// Command line front end of QuizGenerator - see quizgen/build.gradle for how to run it
+package com.ahsan.a47_dietel_flagquizapp;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+public final class QuizGen {
+
+    private static final String USAGE = "usage: quizgen --out <file> [--catalog <flags.idx or assets folder>] [--format binary|csv]\n"
+            + "               [--quizzes <count>] [--questions <per quiz>] [--choices <per question>]\n"
+            + "               [--regions <Region,Region,...>] [--seed <long>] [--threads <count>]";
+
+    private QuizGen() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        String catalogPath = "app/src/main/assets";
+        String out = null;
+        String format = "binary";
+        long quizzes = 1000000;
+        int questions = 10;
+        int choices = 4;
+        String regions = null; // all of them
+        long seed = System.nanoTime();
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        try {
+            for (int i = 0; i < args.length; i += 2) {
+                if (i + 1 == args.length)
+                    throw new IllegalArgumentException("Missing value of " + args[i]);
+                String value = args[i + 1];
+                switch (args[i]) {
+                    case "--catalog": catalogPath = value; break;
+                    case "--out": out = value; break;
+                    case "--format": format = value; break;
+                    case "--quizzes": quizzes = Long.parseLong(value); break;
+                    case "--questions": questions = Integer.parseInt(value); break;
+                    case "--choices": choices = Integer.parseInt(value); break;
+                    case "--regions": regions = value; break;
+                    case "--seed": seed = Long.parseLong(value); break;
+                    case "--threads": threads = Integer.parseInt(value); break;
+                    default: throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+            }
+            if (out == null)
+                throw new IllegalArgumentException("No --out file");
+        } catch (IllegalArgumentException exception) { // NumberFormatException, too
+            System.err.println(exception.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+
+        FlagCatalog catalog = loadCatalog(new File(catalogPath));
+        int regionMask = regions != null ? catalog.regionMask(Arrays.asList(regions.split(","))) : (1 << catalog.regionCount()) - 1;
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        QuizGenerator generator = new QuizGenerator(catalog, regionMask, questions, choices, seed, pool);
+
+        long start = System.nanoTime();
+        try (OutputStream stream = new BufferedOutputStream(new FileOutputStream(out), 1 << 20)) {
+            generator.generate(quizzes, QuizFormat.forName(format, catalog), stream);
+        } finally {
+            pool.shutdown();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.err.printf("%d quizzes of %d questions in %.2f s on %d threads (%.0f quizzes/s, seed %d) -> %s (%d bytes)%n",
+                quizzes, questions, seconds, threads, quizzes / seconds, seed, out, new File(out).length());
+    }
+
+    // reads the index written by the app's generateFlagCatalog task, or lists the flags of an assets folder
+    // (one sub folder of PNGs per region) the way FlagRepository does when the index is missing
+    static FlagCatalog loadCatalog(File path) throws IOException {
+        if (path.isFile()) {
+            try (InputStream in = new FileInputStream(path)) {
+                return FlagCatalog.read(in);
+            }
+        }
+
+        File[] folders = path.listFiles();
+        if (folders == null)
+            throw new IOException("No flag catalog or assets folder at " + path);
+
+        FilenameFilter pngs = new FilenameFilter() {
+            @Override
+            public boolean accept(File directory, String name) {
+                return name.endsWith(".png");
+            }
+        };
+        int regionCount = 0;
+        String[] regions = new String[folders.length];
+        String[][] files = new String[folders.length][];
+        for (File folder : folders) {
+            if (!folder.isDirectory())
+                continue;
+            regions[regionCount] = folder.getName();
+            files[regionCount++] = folder.list(pngs);
+        }
+        return FlagCatalog.fromAssetListing(Arrays.copyOf(regions, regionCount), Arrays.copyOf(files, regionCount));
+    }
+}
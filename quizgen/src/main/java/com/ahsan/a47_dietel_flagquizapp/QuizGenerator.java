@@ -0,0 +1,168 @@
+// QuizGenerator.java
+// Generates any number of quizzes in parallel with the app's QuizEngine, e.g. for printed or exam quizzes
+package com.ahsan.a47_dietel_flagquizapp;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+// Quizzes are generated in chunks of CHUNK_QUIZZES, each chunk by one fork/join task with its own seed
+// (derived from the generator's seed and the chunk's index), on its thread's own QuizEngine and XoroshiroRandom.
+// No state is shared between the threads, so throughput grows with the cores - and since no chunk depends
+// on which thread generated it or what that thread did before, the output is the same for every thread count.
+// The chunks are written in order while the pool generates the next ones.
+public class QuizGenerator {
+
+    static final int CHUNK_QUIZZES = 1024; // quizzes generated by one task
+    private static final int CHUNKS_PER_THREAD = 4; // chunks generated per pool thread before they're written - bounds the memory used
+
+    private final FlagCatalog catalog;
+    private final int regionMask; // regions the quiz flags (and wrong answers) come from, see FlagCatalog.regionMask
+    private final int questions; // per quiz
+    private final int choices; // per question, including the correct one
+    private final long seed;
+    private final ForkJoinPool pool;
+
+    // the engine and buffers of every pool thread, created the first time the thread generates a chunk
+    private final ThreadLocal<Worker> workers = new ThreadLocal<Worker>() {
+        @Override
+        protected Worker initialValue() {
+            return new Worker();
+        }
+    };
+
+    // every quiz has the same number of questions and choices - so the regions need at least that many flags
+    public QuizGenerator(FlagCatalog catalog, int regionMask, int questions, int choices, long seed, ForkJoinPool pool) {
+        int flags = catalog.countFlags(regionMask);
+        if (questions < 1 || questions > flags)
+            throw new IllegalArgumentException("Quizzes of " + questions + " questions need as many flags, the regions have " + flags);
+        if (choices < 2 || choices > QuizEngine.MAX_CHOICES || choices > flags)
+            throw new IllegalArgumentException("Can't have " + choices + " choices with " + flags + " flags");
+
+        this.catalog = catalog;
+        this.regionMask = regionMask;
+        this.questions = questions;
+        this.choices = choices;
+        this.seed = seed;
+        this.pool = pool;
+    }
+
+    public FlagCatalog getCatalog() {
+        return catalog;
+    }
+
+    public int getQuestions() {
+        return questions;
+    }
+
+    public int getChoices() {
+        return choices;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+
+
+
+
+    // generates quizCount quizzes and writes them to out in format - quiz number n is the same whatever the quizCount
+    public void generate(long quizCount, QuizFormat format, OutputStream out) throws IOException {
+        format.writeHeader(out, this, quizCount);
+
+        long chunkCount = (quizCount + CHUNK_QUIZZES - 1) / CHUNK_QUIZZES;
+        int batch = pool.getParallelism() * CHUNKS_PER_THREAD;
+
+        GenerateChunks next = submit(0, chunkCount, batch, quizCount, format);
+        for (long first = 0; first < chunkCount; first += batch) {
+            GenerateChunks current = next;
+            current.join(); // rethrows what a task threw
+            next = submit(first + batch, chunkCount, batch, quizCount, format); // generated while this batch is written
+
+            for (byte[] chunk : current.results)
+                out.write(chunk);
+        }
+        out.flush();
+    }
+
+    // starts generating up to batch chunks from firstChunk on, or returns null after the last chunk
+    private GenerateChunks submit(long firstChunk, long chunkCount, int batch, long quizCount, QuizFormat format) {
+        if (firstChunk >= chunkCount)
+            return null;
+        int count = (int) Math.min(batch, chunkCount - firstChunk);
+        GenerateChunks task = new GenerateChunks(firstChunk, new byte[count][], 0, count, quizCount, format);
+        pool.execute(task);
+        return task;
+    }
+
+    // generates the chunks results[from..to - 1], splitting the range until every task has one chunk
+    private final class GenerateChunks extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final long firstChunk; // chunk index of results[0]
+        private final byte[][] results;
+        private final int from;
+        private final int to;
+        private final long quizCount;
+        private final QuizFormat format;
+
+        GenerateChunks(long firstChunk, byte[][] results, int from, int to, long quizCount, QuizFormat format) {
+            this.firstChunk = firstChunk;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+            this.quizCount = quizCount;
+            this.format = format;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                results[from] = workers.get().generate(firstChunk + from, quizCount, format);
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            ForkJoinTask.invokeAll(new GenerateChunks(firstChunk, results, from, middle, quizCount, format),
+                    new GenerateChunks(firstChunk, results, middle, to, quizCount, format));
+        }
+    }
+
+    // what one pool thread needs to generate chunks - only ever used by that thread
+    private final class Worker {
+        private final XoroshiroRandom random = new XoroshiroRandom();
+        private final QuizEngine engine = new QuizEngine(catalog, random);
+        private final int[] answers = new int[questions]; // flag id of every question of the current quiz
+        private final int[] quizChoices = new int[questions * choices]; // choice c of question q at q * choices + c
+        private final QuizFormat.Buffer buffer = new QuizFormat.Buffer();
+
+        Worker() {
+            engine.setChoiceCount(choices);
+        }
+
+        // encodes the quizzes of chunk number chunk
+        byte[] generate(long chunk, long quizCount, QuizFormat format) {
+            // the same flags in the same order for every chunk, then the chunk's own seed
+            engine.resetRegions(regionMask);
+            random.setSeed(XoroshiroRandom.splitMix64(seed + chunk));
+
+            long firstQuiz = chunk * CHUNK_QUIZZES;
+            int count = (int) Math.min(CHUNK_QUIZZES, quizCount - firstQuiz);
+            buffer.reset();
+
+            for (int quiz = 0; quiz < count; quiz++) {
+                engine.reset(questions);
+                for (int question = 0; question < questions; question++) {
+                    answers[question] = engine.nextQuestion();
+                    for (int choice = 0; choice < choices; choice++)
+                        quizChoices[question * choices + choice] = engine.getChoice(choice);
+                }
+                format.appendQuiz(buffer, firstQuiz + quiz, answers, quizChoices, QuizGenerator.this);
+            }
+            return buffer.toByteArray();
+        }
+    }
+}
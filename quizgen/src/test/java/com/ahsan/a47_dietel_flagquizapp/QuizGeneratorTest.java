@@ -0,0 +1,116 @@
+package com.ahsan.a47_dietel_flagquizapp;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link QuizGenerator}, which run on the development machine (host).
+ */
+public class QuizGeneratorTest {
+
+    private static final int REGIONS = 4;
+    private static final int FLAGS_PER_REGION = 30;
+
+    private final FlagCatalog catalog = syntheticCatalog();
+
+    @Test
+    public void output_isTheSameForEveryThreadCount() throws Exception {
+        long quizzes = 3 * QuizGenerator.CHUNK_QUIZZES + 17; // last chunk only partly filled
+        byte[] single = generate(quizzes, 1, "binary");
+        byte[] parallel = generate(quizzes, 4, "binary");
+
+        assertArrayEquals(single, parallel);
+    }
+
+    @Test
+    public void binary_holdsValidQuizzes() throws Exception {
+        int questions = 10;
+        int choices = 4;
+        long quizzes = 2500;
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(generate(quizzes, 3, "binary")));
+
+        assertEquals(QuizFormat.Binary.MAGIC, in.readInt());
+        assertEquals(QuizFormat.Binary.VERSION, in.readInt());
+        assertEquals(catalog.size(), in.readInt());
+        assertEquals(questions, in.readInt());
+        assertEquals(choices, in.readInt());
+        assertEquals(42, in.readLong());
+        assertEquals(quizzes, in.readLong());
+
+        for (long quiz = 0; quiz < quizzes; quiz++) {
+            boolean[] asked = new boolean[catalog.size()];
+            for (int question = 0; question < questions; question++) {
+                int correct = in.readByte();
+                assertTrue(correct >= 0 && correct < choices);
+
+                boolean[] shown = new boolean[catalog.size()];
+                int answer = -1;
+                for (int choice = 0; choice < choices; choice++) {
+                    int id = in.readUnsignedShort();
+                    assertFalse("choice shown twice", shown[id]);
+                    shown[id] = true;
+                    if (choice == correct)
+                        answer = id;
+                }
+                assertFalse("flag asked twice in one quiz", asked[answer]);
+                asked[answer] = true;
+            }
+        }
+        assertEquals(-1, in.read()); // nothing after the last quiz
+    }
+
+    @Test
+    public void csv_hasOneQuotedLinePerQuestion() throws Exception {
+        String[] lines = new String(generate(5, 2, "csv"), StandardCharsets.UTF_8).split("\n");
+
+        assertEquals("quiz,question,answer,choice_1,choice_2,choice_3,choice_4", lines[0]);
+        assertEquals(1 + 5 * 10, lines.length);
+        assertTrue(lines[1].startsWith("1,1,"));
+        assertTrue(lines[50].startsWith("5,10,"));
+        for (int line = 1; line < lines.length; line++)
+            assertEquals(7, lines[line].replace("\"Korea, South\"", "Korea").split(",").length);
+    }
+
+    @Test
+    public void tooFewFlags_areRejected() throws Exception {
+        int oneRegion = catalog.regionMask(Collections.singleton("Region0"));
+        try {
+            new QuizGenerator(catalog, oneRegion, FLAGS_PER_REGION + 1, 4, 1, new ForkJoinPool(1));
+            fail("more questions than flags");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    private byte[] generate(long quizzes, int threads, String format) throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            QuizGenerator generator = new QuizGenerator(catalog, (1 << REGIONS) - 1, 10, 4, 42, pool);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            generator.generate(quizzes, QuizFormat.forName(format, catalog), out);
+            return out.toByteArray();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // REGIONS regions of FLAGS_PER_REGION flags - one of them named with a comma, so the CSV has to quote it
+    private static FlagCatalog syntheticCatalog() {
+        String[] regions = new String[REGIONS];
+        String[][] files = new String[REGIONS][FLAGS_PER_REGION];
+        for (int region = 0; region < REGIONS; region++) {
+            regions[region] = "Region" + region;
+            for (int flag = 0; flag < FLAGS_PER_REGION; flag++)
+                files[region][flag] = "Region" + region + "-Country" + flag + ".png";
+        }
+        files[0][0] = "Region0-Korea,_South.png";
+        return FlagCatalog.fromAssetListing(regions, files);
+    }
+}